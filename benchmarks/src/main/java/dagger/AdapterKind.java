@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import dagger.internal.TestingLoader;
+
+/** The kinds of bindings that benchmarked graphs are created with. */
+public enum AdapterKind {
+  /** Adapters generated by {@code dagger-compiler}. */
+  GENERATED {
+    @Override ObjectGraph create(Object... modules) {
+      return ObjectGraph.create(modules);
+    }
+  },
+
+  /** Bindings and module adapters created by reflection. */
+  REFLECTIVE {
+    @Override ObjectGraph create(Object... modules) {
+      return ObjectGraph.createWith(new TestingLoader(), modules);
+    }
+  };
+
+  abstract ObjectGraph create(Object... modules);
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static dagger.Provides.Type.SET;
+import static dagger.Provides.Type.SET_VALUES;
+
+/**
+ * Benchmarks getting instances from the providers injected into an object:
+ * {@code Lazy}, set bindings, singletons and unscoped bindings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+  @Param AdapterKind adapters;
+
+  private Holder holder;
+
+  @Setup public void setUp() {
+    holder = adapters.create(new HolderModule()).get(Holder.class);
+    holder.lazyEngine.get();
+  }
+
+  @Benchmark public Engine lazyGet() {
+    return holder.lazyEngine.get();
+  }
+
+  @Benchmark public Set<String> setGet() {
+    return holder.names.get();
+  }
+
+  @Benchmark public Engine singletonGet() {
+    return holder.engine.get();
+  }
+
+  @Benchmark public Part unscopedGet() {
+    return holder.part.get();
+  }
+
+  public static class Holder {
+    @Inject Lazy<Engine> lazyEngine;
+    @Inject Provider<Set<String>> names;
+    @Inject Provider<Engine> engine;
+    @Inject Provider<Part> part;
+  }
+
+  @Singleton
+  public static class Engine {
+    @Inject Engine() { }
+  }
+
+  public static class Part {
+    @Inject Engine engine;
+  }
+
+  @Module(injects = Holder.class)
+  static class HolderModule {
+    @Provides(type = SET) String provideA() {
+      return "a";
+    }
+
+    @Provides(type = SET) String provideB() {
+      return "b";
+    }
+
+    @Provides(type = SET) @Singleton String provideC() {
+      return "c";
+    }
+
+    @Provides(type = SET) String provideD(Engine engine) {
+      return "d";
+    }
+
+    @Provides(type = SET_VALUES) Set<String> provideEtc() {
+      return new LinkedHashSet<String>(Arrays.asList("e", "f", "g", "h"));
+    }
+  }
+}
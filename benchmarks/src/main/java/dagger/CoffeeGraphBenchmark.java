@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import coffee.CoffeeApp;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the life cycle of the {@code examples/simple} coffee graph: its
+ * creation and validation, steady-state {@code get()} and {@code inject()}, and
+ * per-request child graphs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeGraphBenchmark {
+  @Param AdapterKind adapters;
+
+  private Class<?> dripCoffeeModule;
+  private ObjectGraph graph;
+
+  @Setup public void setUp() throws ClassNotFoundException {
+    dripCoffeeModule = Class.forName("coffee.DripCoffeeModule"); // Package-private.
+    graph = adapters.create(dripCoffeeModule);
+    graph.get(CoffeeApp.class);
+  }
+
+  @Benchmark public ObjectGraph create() {
+    return adapters.create(dripCoffeeModule);
+  }
+
+  @Benchmark public ObjectGraph createAndValidate() {
+    ObjectGraph result = adapters.create(dripCoffeeModule);
+    result.validate();
+    return result;
+  }
+
+  @Benchmark public CoffeeApp get() {
+    return graph.get(CoffeeApp.class);
+  }
+
+  @Benchmark public CoffeeApp inject() {
+    return graph.inject(new CoffeeApp());
+  }
+
+  @Benchmark @Threads(8) public CoffeeApp getContended() {
+    return graph.get(CoffeeApp.class);
+  }
+
+  @Benchmark @Threads(8) public CoffeeApp injectContended() {
+    return graph.inject(new CoffeeApp());
+  }
+
+  @Benchmark public ObjectGraph plus() {
+    return graph.plus(new OrderModule("customer"));
+  }
+
+  @Benchmark public Order plusAndGet() {
+    return graph.plus(new OrderModule("customer")).get(Order.class);
+  }
+
+  public static class Order {
+    @Inject CoffeeApp app;
+    @Inject @Named("customer") String customer;
+  }
+
+  @Module(injects = Order.class, complete = false)
+  static class OrderModule {
+    private final String customer;
+
+    OrderModule(String customer) {
+      this.customer = customer;
+    }
+
+    @Provides @Named("customer") String provideCustomer() {
+      return customer;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks steady-state calls to {@link ObjectGraph#get} and {@link
+ * ObjectGraph#inject} for types whose bindings allocate nothing, before and
+ * after the graph is validated. Run with {@code -prof gc}: {@code
+ * gc.alloc.rate.norm} should be zero for each of these benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphGetBenchmark {
+  @Param AdapterKind adapters;
+  @Param({ "false", "true" }) boolean validated;
+
+  private ObjectGraph graph;
+  private Client client;
+
+  @Setup public void setUp() {
+    graph = adapters.create(new ClientModule());
+    if (validated) {
+      graph.validate();
+    }
+    client = graph.get(Client.class);
+  }
+
+  @Benchmark public Service getSingleton() {
+    return graph.get(Service.class);
+  }
+
+  @Benchmark public Client inject() {
+    return graph.inject(client);
+  }
+
+  @Singleton
+  public static class Service {
+    @Inject Service() { }
+  }
+
+  public static class Client {
+    @Inject Service service;
+  }
+
+  @Module(injects = { Client.class, Service.class })
+  static class ClientModule {
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks creating unscoped objects by constructor injection and by field
+ * injection, comparing generated adapters with reflective bindings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProvisionBenchmark {
+  @Param AdapterKind adapters;
+
+  private Holder holder;
+
+  @Setup public void setUp() {
+    holder = adapters.create(new ProvisionModule()).get(Holder.class);
+  }
+
+  @Benchmark public ConstructorInjected constructorInjection() {
+    return holder.constructorInjected.get();
+  }
+
+  @Benchmark public FieldInjected fieldInjection() {
+    return holder.fieldInjected.get();
+  }
+
+  public static class Holder {
+    @Inject Provider<ConstructorInjected> constructorInjected;
+    @Inject Provider<FieldInjected> fieldInjected;
+  }
+
+  @Singleton
+  public static class A {
+    @Inject A() { }
+  }
+
+  @Singleton
+  public static class B {
+    @Inject B() { }
+  }
+
+  @Singleton
+  public static class C {
+    @Inject C() { }
+  }
+
+  public static class ConstructorInjected {
+    final A a;
+    final B b;
+    final C c;
+
+    @Inject ConstructorInjected(A a, B b, C c) {
+      this.a = a;
+      this.b = b;
+      this.c = c;
+    }
+  }
+
+  public static class FieldInjected {
+    @Inject A a;
+    @Inject B b;
+    @Inject C c;
+  }
+
+  @Module(injects = Holder.class)
+  static class ProvisionModule {
+  }
+}
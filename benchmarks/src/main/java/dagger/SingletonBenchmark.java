@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the first access of a singleton and its singleton dependencies in
+ * a newly created and linked graph. Each measurement is a single call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2000)
+@Measurement(iterations = 2000)
+@Fork(1)
+public class SingletonBenchmark {
+  @Param AdapterKind adapters;
+
+  private ObjectGraph graph;
+
+  @Setup(Level.Iteration) public void setUp() {
+    graph = adapters.create(new ServiceModule());
+    graph.validate();
+  }
+
+  @Benchmark public Service firstAccess() {
+    return graph.get(Service.class);
+  }
+
+  @Singleton
+  public static class Database {
+    @Inject Database() { }
+  }
+
+  @Singleton
+  public static class Repository {
+    @Inject Database database;
+  }
+
+  @Singleton
+  public static class Service {
+    @Inject Repository repository;
+    @Inject Database database;
+  }
+
+  @Module(injects = Service.class)
+  static class ServiceModule {
+  }
+}
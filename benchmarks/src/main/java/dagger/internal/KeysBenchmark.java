@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks computing the key of a reflected constructor parameter, as
+ * reflective bindings do once per class for each of their dependencies. Run
+ * with {@code -prof gc} to see the memory allocated per key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeysBenchmark {
+  @Param({ "plain", "parameterized", "qualified" }) String parameter;
+
+  private Constructor<?> constructor;
+  private Type type;
+  private Annotation[] annotations;
+
+  static class Dependent {
+    @Inject Dependent(String plain, Map<String, List<Integer>> parameterized,
+        @Named("foo") String qualified) {
+    }
+  }
+
+  @Setup public void setUp() throws NoSuchMethodException {
+    constructor = Dependent.class.getDeclaredConstructor(String.class, Map.class, String.class);
+    int index = Arrays.asList("plain", "parameterized", "qualified").indexOf(parameter);
+    type = constructor.getGenericParameterTypes()[index];
+    annotations = constructor.getParameterAnnotations()[index];
+  }
+
+  @Benchmark public String get() {
+    return Keys.get(type, annotations, constructor);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks linking synthetic graphs of just-in-time bindings: {@code depth +
+ * 1} layers of {@code width} bindings, in which each binding depends on every
+ * binding of the next layer. A width of 1 is a chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkerBenchmark {
+  @Param({ "1", "10" }) int width;
+  @Param({ "10", "100", "1000" }) int depth;
+
+  @Benchmark public Linker link() {
+    Loader loader = new Loader() {
+      @Override public Binding<?> getAtInjectBinding(
+          String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
+        return new NodeBinding(key, width, depth);
+      }
+
+      @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    Linker linker = new Linker(null, loader, new ThrowingErrorHandler());
+    synchronized (linker) {
+      for (int n = 0; n < width; n++) {
+        linker.requestBinding(key(0, n), "benchmark", null);
+      }
+      linker.linkAll();
+    }
+    return linker;
+  }
+
+  private static String key(int layer, int n) {
+    return "lattice.L" + layer + "N" + n;
+  }
+
+  private static final class NodeBinding extends Binding<Object> {
+    private final Binding<?>[] dependencies;
+    private final String[] dependencyKeys;
+
+    NodeBinding(String key, int width, int depth) {
+      super(key, null, NOT_SINGLETON, key);
+      int layer = Integer.parseInt(key.substring(key.indexOf('L') + 1, key.indexOf('N')));
+      int count = (layer < depth) ? width : 0;
+      dependencies = new Binding<?>[count];
+      dependencyKeys = new String[count];
+      for (int n = 0; n < count; n++) {
+        dependencyKeys[n] = key(layer + 1, n);
+      }
+    }
+
+    @Override public void attach(Linker linker) {
+      for (int i = 0; i < dependencies.length; i++) {
+        dependencies[i] = linker.requestBinding(dependencyKeys[i], provideKey, null);
+      }
+    }
+
+    @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
+      for (Binding<?> dependency : dependencies) {
+        get.add(dependency);
+      }
+    }
+  }
+}
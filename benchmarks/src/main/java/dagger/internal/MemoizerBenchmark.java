@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks memoized lookups from concurrent threads, as when graphs load
+ * classes and module adapters in parallel. Compares {@link Memoizer} with the
+ * {@link ReadWriteLockMemoizer} it replaced. Run {@link #main} to run this
+ * benchmark with 1 to 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoizerBenchmark {
+  private static final int KEY_COUNT = 256;
+
+  @Param({ "CONCURRENT", "READ_WRITE_LOCK" }) String memoizer;
+
+  private final String[] keys = new String[KEY_COUNT];
+  private Memoizer<String, Object> concurrent;
+  private ReadWriteLockMemoizer<String, Object> readWriteLock;
+
+  @Setup public void setUp() {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = "dagger.Key" + i;
+    }
+    if (memoizer.equals("CONCURRENT")) {
+      concurrent = new Memoizer<String, Object>() {
+        @Override protected Object create(String key) {
+          return new Object();
+        }
+      };
+    } else {
+      readWriteLock = new ReadWriteLockMemoizer<String, Object>() {
+        @Override protected Object create(String key) {
+          return new Object();
+        }
+      };
+    }
+  }
+
+  /** Each thread cycles through the keys from its own starting point. */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next = (int) (Thread.currentThread().getId() * 31);
+  }
+
+  @Benchmark public Object get(Cursor cursor) {
+    String key = keys[cursor.next++ & (KEY_COUNT - 1)];
+    return (concurrent != null) ? concurrent.get(key) : readWriteLock.get(key);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads = 1; threads <= 64; threads *= 2) {
+      Options options = new OptionsBuilder()
+          .include(MemoizerBenchmark.class.getName())
+          .threads(threads)
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.scaling;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the sources of a synthetic graph of {@code depth} layers of {@code
+ * width} classes. Each class has an {@code @Inject} constructor that takes
+ * {@code fanOut} classes of the next layer. Modules inject the first layer, and
+ * a {@code setDensity} fraction of all classes are contributed to a {@code
+ * Set<Object>} by {@code @Provides(type = SET)} methods.
+ */
+final class GraphGenerator {
+  static final String PACKAGE = "scaling";
+  static final String ROOT_MODULE = PACKAGE + ".RootModule";
+
+  /** Limits the size of generated modules and their adapters' static initializers. */
+  private static final int MEMBERS_PER_MODULE = 500;
+
+  final int width;
+  final int depth;
+  final int fanOut;
+  final double setDensity;
+  final int membersPerModule;
+
+  GraphGenerator(int width, int depth, int fanOut, double setDensity) {
+    this(width, depth, fanOut, setDensity, MEMBERS_PER_MODULE);
+  }
+
+  /**
+   * @param membersPerModule the number of injectable types and set contributions of each
+   *     generated module.
+   */
+  GraphGenerator(int width, int depth, int fanOut, double setDensity, int membersPerModule) {
+    if (width < 1 || depth < 1 || fanOut < 0 || setDensity < 0 || setDensity > 1
+        || membersPerModule < 1 || membersPerModule > MEMBERS_PER_MODULE) {
+      throw new IllegalArgumentException("Invalid graph shape: width=" + width + " depth=" + depth
+          + " fanOut=" + fanOut + " setDensity=" + setDensity
+          + " membersPerModule=" + membersPerModule);
+    }
+    this.width = width;
+    this.depth = depth;
+    this.fanOut = fanOut;
+    this.setDensity = setDensity;
+    this.membersPerModule = membersPerModule;
+  }
+
+  int classCount() {
+    return width * depth;
+  }
+
+  /** Returns the source of each generated class, by simple name. */
+  Map<String, String> generate() {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (int layer = 0; layer < depth; layer++) {
+      for (int i = 0; i < width; i++) {
+        result.put(className(layer, i), injectClass(layer, i));
+      }
+    }
+
+    List<String> contributors = new ArrayList<String>();
+    if (setDensity > 0) {
+      int every = (int) Math.round(1 / setDensity);
+      for (int n = 0; n < classCount(); n++) {
+        if (n % every == 0) {
+          contributors.add(className(n / width, n % width));
+        }
+      }
+      result.put("SetConsumer", ""
+          + "package " + PACKAGE + ";\n"
+          + "\n"
+          + "import java.util.Set;\n"
+          + "import javax.inject.Inject;\n"
+          + "\n"
+          + "public final class SetConsumer {\n"
+          + "  @Inject public SetConsumer(Set<Object> all) {\n"
+          + "  }\n"
+          + "}\n");
+    }
+
+    List<String> modules = new ArrayList<String>();
+    int moduleCount = Math.max((width + membersPerModule - 1) / membersPerModule,
+        (contributors.size() + membersPerModule - 1) / membersPerModule);
+    for (int m = 0; m < moduleCount; m++) {
+      String name = "Module" + m;
+      modules.add(name);
+      result.put(name, module(name, m, contributors));
+    }
+    result.put("RootModule", rootModule(modules, !contributors.isEmpty()));
+    return result;
+  }
+
+  private String injectClass(int layer, int i) {
+    StringBuilder parameters = new StringBuilder();
+    if (layer + 1 < depth) {
+      for (int k = 0; k < fanOut; k++) {
+        if (k > 0) parameters.append(", ");
+        parameters.append(className(layer + 1, (i + k) % width)).append(" p").append(k);
+      }
+    }
+    String name = className(layer, i);
+    return ""
+        + "package " + PACKAGE + ";\n"
+        + "\n"
+        + "import javax.inject.Inject;\n"
+        + "\n"
+        + "public final class " + name + " {\n"
+        + "  @Inject public " + name + "(" + parameters + ") {\n"
+        + "  }\n"
+        + "}\n";
+  }
+
+  private String module(String name, int m, List<String> contributors) {
+    StringBuilder injects = new StringBuilder();
+    for (int i = m * membersPerModule; i < Math.min(width, (m + 1) * membersPerModule); i++) {
+      injects.append(injects.length() > 0 ? ", " : "").append(className(0, i)).append(".class");
+    }
+    StringBuilder provides = new StringBuilder();
+    int end = Math.min(contributors.size(), (m + 1) * membersPerModule);
+    for (int i = m * membersPerModule; i < end; i++) {
+      provides.append("\n")
+          .append("  @Provides(type = SET) Object provide").append(i)
+          .append("(").append(contributors.get(i)).append(" value) {\n")
+          .append("    return value;\n")
+          .append("  }\n");
+    }
+    return ""
+        + "package " + PACKAGE + ";\n"
+        + "\n"
+        + "import dagger.Module;\n"
+        + "import dagger.Provides;\n"
+        + "\n"
+        + "import static dagger.Provides.Type.SET;\n"
+        + "\n"
+        + "@Module(injects = { " + injects + " }, library = true)\n"
+        + "public final class " + name + " {\n"
+        + provides
+        + "}\n";
+  }
+
+  private String rootModule(List<String> modules, boolean injectSet) {
+    StringBuilder includes = new StringBuilder();
+    for (String module : modules) {
+      includes.append(includes.length() > 0 ? ", " : "").append(module).append(".class");
+    }
+    return ""
+        + "package " + PACKAGE + ";\n"
+        + "\n"
+        + "import dagger.Module;\n"
+        + "\n"
+        + "@Module(includes = { " + includes + " }, "
+        + "injects = { " + (injectSet ? "SetConsumer.class" : "") + " }, library = true)\n"
+        + "public final class RootModule {\n"
+        + "}\n";
+  }
+
+  private static String className(int layer, int i) {
+    return "C" + layer + "_" + i;
+  }
+
+  @Override public String toString() {
+    return "width=" + width + " depth=" + depth + " fanOut=" + fanOut
+        + " setDensity=" + setDensity + " membersPerModule=" + membersPerModule;
+  }
+}
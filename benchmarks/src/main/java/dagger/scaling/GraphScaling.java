@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.scaling;
+
+import dagger.ObjectGraph;
+import dagger.internal.Binding;
+import dagger.internal.BindingsGroup;
+import dagger.internal.FailoverLoader;
+import dagger.internal.Linker;
+import dagger.internal.Loader;
+import dagger.internal.ModuleAdapter;
+import dagger.internal.Modules;
+import dagger.internal.ProblemDetector;
+import dagger.internal.SetBinding;
+import dagger.internal.ThrowingErrorHandler;
+import dagger.internal.codegen.InjectAdapterProcessor;
+import dagger.internal.codegen.ModuleAdapterProcessor;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Reports how the time and heap used by module loading, linking, problem
+ * detection, graph creation and validation grow with the size of synthetic
+ * graphs. Each graph is generated by {@link GraphGenerator}, compiled with
+ * Dagger's annotation processors, and loaded in its own class loader.
+ *
+ * <p>Run with a JDK:
+ * <pre>
+ *   java -cp benchmarks/target/benchmarks.jar dagger.scaling.GraphScaling \
+ *       sizes=1000,10000,100000 depth=10 fanOut=3 setDensity=0.1 repetitions=5
+ * </pre>
+ * All arguments are optional. Sizes are numbers of generated classes. Each
+ * phase is reported cold (its first run, which loads classes) and warm (the
+ * fastest later run), with the warm time per linked binding: a per-binding
+ * time that grows with the graph's size reveals super-linear behavior.
+ */
+public final class GraphScaling {
+  private static final String[] PHASES = {
+      "loadModules", "linkAll", "detectProblems", "create", "validate"
+  };
+
+  private GraphScaling() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new LinkedHashMap<String, String>();
+    options.put("sizes", "1000,10000");
+    options.put("depth", "10");
+    options.put("fanOut", "3");
+    options.put("setDensity", "0.1");
+    options.put("repetitions", "5");
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals == -1 || !options.containsKey(arg.substring(0, equals))) {
+        throw new IllegalArgumentException("Unexpected argument " + arg + ". Options: " + options);
+      }
+      options.put(arg.substring(0, equals), arg.substring(equals + 1));
+    }
+    int depth = Integer.parseInt(options.get("depth"));
+    int fanOut = Integer.parseInt(options.get("fanOut"));
+    double setDensity = Double.parseDouble(options.get("setDensity"));
+    int repetitions = Integer.parseInt(options.get("repetitions"));
+
+    System.out.println("Options: " + options);
+    System.out.printf("%9s %9s  %-15s %10s %10s %16s%n",
+        "classes", "bindings", "phase", "cold ms", "warm ms", "warm us/binding");
+    for (String size : options.get("sizes").split(",")) {
+      int width = Math.max(1, Integer.parseInt(size.trim()) / depth);
+      run(new GraphGenerator(width, depth, fanOut, setDensity), repetitions);
+    }
+  }
+
+  private static void run(GraphGenerator generator, int repetitions) throws Exception {
+    File dir = Files.createTempDirectory("dagger-scaling").toFile();
+    try {
+      long start = System.nanoTime();
+      File classes = compile(generator.generate(), dir);
+      long compileNanos = System.nanoTime() - start;
+
+      URLClassLoader classLoader = new URLClassLoader(
+          new URL[] {classes.toURI().toURL()}, GraphScaling.class.getClassLoader());
+      Class<?> rootModule = classLoader.loadClass(GraphGenerator.ROOT_MODULE);
+
+      long[][] nanos = new long[PHASES.length][repetitions];
+      int bindingCount = time(rootModule, nanos);
+      long heap = retainedHeap(rootModule);
+
+      System.out.printf("%9d %9d  %-15s %10.1f%n",
+          generator.classCount(), bindingCount, "compile", compileNanos / 1e6);
+      for (int p = 0; p < PHASES.length; p++) {
+        long warm = nanos[p][0];
+        for (int r = 1; r < repetitions; r++) {
+          warm = Math.min(warm, nanos[p][r]);
+        }
+        System.out.printf("%9s %9s  %-15s %10.1f %10.1f %16.3f%n", "", "", PHASES[p],
+            nanos[p][0] / 1e6, warm / 1e6, warm / 1e3 / bindingCount);
+      }
+      System.out.printf("%9s %9s  %-15s %10.1f MB, %d bytes/binding%n", "", "", "validated heap",
+          heap / 1e6, heap / bindingCount);
+    } finally {
+      delete(dir);
+    }
+  }
+
+  /**
+   * Runs each phase on {@code rootModule} once per column of {@code nanos},
+   * recording its duration, and returns the number of linked bindings.
+   */
+  private static int time(Class<?> rootModule, long[][] nanos) {
+    int bindingCount = 0;
+    for (int r = 0; r < nanos[0].length; r++) {
+      long t0 = System.nanoTime();
+      Loader loader = new FailoverLoader();
+      Map<ModuleAdapter<?>, Object> modules =
+          Modules.loadModules(loader, new Object[] {rootModule});
+      long t1 = System.nanoTime();
+      Map<String, Binding<?>> linked = link(loader, modules);
+      long t2 = System.nanoTime();
+      new ProblemDetector().detectProblems(linked.values());
+      long t3 = System.nanoTime();
+      ObjectGraph graph = ObjectGraph.create(rootModule);
+      long t4 = System.nanoTime();
+      graph.validate();
+      long t5 = System.nanoTime();
+
+      bindingCount = linked.size();
+      long[] times = {t1 - t0, t2 - t1, t3 - t2, t4 - t3, t5 - t4};
+      for (int p = 0; p < PHASES.length; p++) {
+        nanos[p][r] = times[p];
+      }
+    }
+    return bindingCount;
+  }
+
+  /** Links the bindings of {@code modules} as an object graph does. */
+  private static Map<String, Binding<?>> link(
+      Loader loader, Map<ModuleAdapter<?>, Object> modules) {
+    BindingsGroup bindings = new BindingsGroup() {
+      @Override public Binding<?> contributeSetBinding(String key, SetBinding<?> value) {
+        return put(key, value);
+      }
+    };
+    for (Map.Entry<ModuleAdapter<?>, Object> entry : modules.entrySet()) {
+      @SuppressWarnings("unchecked") // Each adapter is keyed to an instance of its module.
+      ModuleAdapter<Object> adapter = (ModuleAdapter<Object>) entry.getKey();
+      adapter.getBindings(bindings, entry.getValue());
+    }
+    Linker linker = new Linker(null, loader, new ThrowingErrorHandler());
+    synchronized (linker) {
+      linker.installBindings(bindings);
+      for (ModuleAdapter<?> adapter : modules.keySet()) {
+        for (String key : adapter.injectableTypes) {
+          linker.requestBinding(
+              key, adapter.moduleClass, adapter.moduleClass.getClassLoader(), false, true);
+        }
+      }
+      return linker.linkAll();
+    }
+  }
+
+  /** Returns the bytes of heap retained by a validated graph of {@code rootModule}. */
+  private static long retainedHeap(Class<?> rootModule) {
+    // Measure several graphs so that the result stands out from the noise.
+    ObjectGraph[] graphs = new ObjectGraph[4];
+    long before = usedHeap();
+    for (int i = 0; i < graphs.length; i++) {
+      graphs[i] = ObjectGraph.create(rootModule);
+      graphs[i].validate();
+    }
+    long after = usedHeap();
+    for (ObjectGraph graph : graphs) {
+      graph.injectStatics(); // Keeps the graphs reachable until after the measurement.
+    }
+    return (after - before) / graphs.length;
+  }
+
+  /** Returns the heap in use once garbage collection stops freeing memory. */
+  private static long usedHeap() {
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long current = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+      if (current >= used) {
+        break;
+      }
+      used = current;
+    }
+    return used;
+  }
+
+  /** Compiles {@code sources} with the adapter processors and returns the classes directory. */
+  static File compile(Map<String, String> sources, File dir) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("No system Java compiler. Run with a JDK.");
+    }
+    Charset utf8 = Charset.forName("UTF-8");
+    File sourceDir = new File(dir, "src/" + GraphGenerator.PACKAGE);
+    File classesDir = new File(dir, "classes");
+    if (!sourceDir.mkdirs() || !classesDir.mkdirs()) {
+      throw new IOException("Cannot create directories in " + dir);
+    }
+    List<File> files = new ArrayList<File>();
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      File file = new File(sourceDir, source.getKey() + ".java");
+      Writer writer = new OutputStreamWriter(new FileOutputStream(file), utf8);
+      try {
+        writer.write(source.getValue());
+      } finally {
+        writer.close();
+      }
+      files.add(file);
+    }
+
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, utf8);
+    try {
+      List<String> options = Arrays.asList("-nowarn", "-d", classesDir.getPath(),
+          "-classpath", System.getProperty("java.class.path"));
+      JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+          options, null, fileManager.getJavaFileObjectsFromFiles(files));
+      task.setProcessors(Arrays.asList(new InjectAdapterProcessor(), new ModuleAdapterProcessor()));
+      if (!task.call()) {
+        throw new IllegalStateException("Compilation failed: " + diagnostics.getDiagnostics());
+      }
+    } finally {
+      fileManager.close();
+    }
+    return classesDir;
+  }
+
+  static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
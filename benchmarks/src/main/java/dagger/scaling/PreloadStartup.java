@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.scaling;
+
+import dagger.ObjectGraph;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reports the wall-clock time to create and validate a synthetic graph of many
+ * modules in a fresh class loader, with and without {@link
+ * ObjectGraph.Builder#preloadAdapters preloading} its adapters. Each run loads
+ * the graph's classes again, as an application does when it starts.
+ *
+ * <p>Run with a JDK:
+ * <pre>
+ *   java -Xmx2g -cp benchmarks/target/benchmarks.jar dagger.scaling.PreloadStartup \
+ *       size=10000 depth=2 membersPerModule=50 threads=4 repetitions=10
+ * </pre>
+ * All arguments are optional. Preloading can only run concurrently with graph
+ * creation on a machine with several cores.
+ */
+public final class PreloadStartup {
+  private PreloadStartup() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new LinkedHashMap<String, String>();
+    options.put("size", "10000");
+    options.put("depth", "2");
+    options.put("fanOut", "3");
+    options.put("setDensity", "0.1");
+    options.put("membersPerModule", "50");
+    options.put("threads", "4");
+    options.put("repetitions", "10");
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (equals == -1 || !options.containsKey(arg.substring(0, equals))) {
+        throw new IllegalArgumentException("Unexpected argument " + arg + ". Options: " + options);
+      }
+      options.put(arg.substring(0, equals), arg.substring(equals + 1));
+    }
+    int depth = Integer.parseInt(options.get("depth"));
+    int width = Math.max(1, Integer.parseInt(options.get("size")) / depth);
+    GraphGenerator generator = new GraphGenerator(width, depth,
+        Integer.parseInt(options.get("fanOut")), Double.parseDouble(options.get("setDensity")),
+        Integer.parseInt(options.get("membersPerModule")));
+    int threads = Integer.parseInt(options.get("threads"));
+    int repetitions = Integer.parseInt(options.get("repetitions"));
+
+    System.out.println("Options: " + options);
+    System.out.println("Processors: " + Runtime.getRuntime().availableProcessors());
+    File dir = Files.createTempDirectory("dagger-preload").toFile();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      URL classes = GraphScaling.compile(generator.generate(), dir).toURI().toURL();
+      createAndValidate(classes, null); // Loads Dagger's own classes.
+
+      // Alternate the modes so that both see the same JIT and heap conditions.
+      long[] plain = new long[repetitions];
+      long[] preloading = new long[repetitions];
+      for (int r = 0; r < repetitions; r++) {
+        plain[r] = createAndValidate(classes, null);
+        preloading[r] = createAndValidate(classes, executor);
+      }
+      System.out.printf("%-12s %10s %10s%n", "mode", "min ms", "median ms");
+      report("create", plain);
+      report("preloading", preloading);
+    } finally {
+      executor.shutdown();
+      GraphScaling.delete(dir);
+    }
+  }
+
+  /** Returns the nanoseconds taken to create and validate the graph in a new class loader. */
+  private static long createAndValidate(URL classes, ExecutorService executor) throws Exception {
+    URLClassLoader classLoader =
+        new URLClassLoader(new URL[] {classes}, PreloadStartup.class.getClassLoader());
+    Class<?> rootModule = classLoader.loadClass(GraphGenerator.ROOT_MODULE);
+    System.gc();
+    long start = System.nanoTime();
+    ObjectGraph graph = (executor != null)
+        ? ObjectGraph.builder().preloadAdapters(executor).create(rootModule)
+        : ObjectGraph.create(rootModule);
+    graph.validate();
+    return System.nanoTime() - start;
+  }
+
+  private static void report(String mode, long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    System.out.printf("%-12s %10.1f %10.1f%n",
+        mode, sorted[0] / 1e6, sorted[sorted.length / 2] / 1e6);
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.codegen;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import dagger.internal.AdapterIndex;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import static dagger.internal.loaders.GeneratedAdapters.ADAPTER_INDEX_SUFFIX;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PROTECTED;
+import static javax.lang.model.element.Modifier.PUBLIC;
+
+/**
+ * Writes {@link AdapterIndex} subclasses for the adapters generated by a processor, and lists them
+ * in a resource so that loaders can create those adapters without looking them up by name.
+ */
+final class AdapterIndexWriter {
+  /** Keeps the index methods well below the limits on the size of a method's code. */
+  private static final int MAX_ADAPTERS_PER_INDEX = 1000;
+
+  private final ProcessingEnvironment processingEnv;
+  private final String resourceName;
+  private final List<ClassName> adapters = new ArrayList<ClassName>();
+  private final List<String> indexNames = new ArrayList<String>();
+
+  /**
+   * @param resourceName the resource that lists the indexes written by this writer.
+   */
+  AdapterIndexWriter(ProcessingEnvironment processingEnv, String resourceName) {
+    this.processingEnv = processingEnv;
+    this.resourceName = resourceName;
+  }
+
+  /**
+   * Adds a generated adapter to the index of the current round. Adapters are top-level classes, so
+   * their canonical names are also their class names.
+   */
+  void add(ClassName adapter) {
+    adapters.add(adapter);
+  }
+
+  /**
+   * Writes the indexes of the adapters added in this round, or the resource that lists the
+   * indexes if processing is over. Adapters generated in the last round aren't indexed, since
+   * sources created in that round aren't processed; loaders find them by name.
+   */
+  void roundComplete(RoundEnvironment env) {
+    try {
+      if (env.processingOver()) {
+        writeResource();
+      } else {
+        writeIndexes();
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Code gen failed: " + e);
+    }
+    adapters.clear();
+  }
+
+  private void writeIndexes() throws IOException {
+    Collections.sort(adapters, new Comparator<ClassName>() {
+      @Override public int compare(ClassName a, ClassName b) {
+        return a.toString().compareTo(b.toString());
+      }
+    });
+    for (int start = 0; start < adapters.size(); start += MAX_ADAPTERS_PER_INDEX) {
+      int end = Math.min(start + MAX_ADAPTERS_PER_INDEX, adapters.size());
+      writeIndex(adapters.subList(start, end));
+    }
+  }
+
+  private void writeIndex(List<ClassName> indexed) throws IOException {
+    StringBuilder names = new StringBuilder();
+    for (ClassName adapter : indexed) {
+      names.append(adapter.toString()).append('\n');
+    }
+    String packageName = indexed.get(0).packageName();
+    String simpleName = String.format("Dagger%08x", names.toString().hashCode())
+        + ADAPTER_INDEX_SUFFIX;
+
+    CodeBlock.Builder superCall = CodeBlock.builder().add("super(new String[] {\n").indent();
+    MethodSpec.Builder create = MethodSpec.methodBuilder("create")
+        .addAnnotation(Override.class)
+        .addModifiers(PROTECTED)
+        .returns(Object.class)
+        .addParameter(int.class, "index")
+        .beginControlFlow("switch (index)");
+    for (int i = 0; i < indexed.size(); i++) {
+      superCall.add("$S,\n", indexed.get(i).toString());
+      create.addStatement("case $L: return new $T()", i, indexed.get(i));
+    }
+    superCall.unindent().add("});\n");
+    create.addStatement("default: throw new $T(String.valueOf(index))",
+        IndexOutOfBoundsException.class)
+        .endControlFlow();
+
+    TypeSpec index = TypeSpec.classBuilder(simpleName)
+        .addJavadoc(AdapterJavadocs.ADAPTER_INDEX_TYPE)
+        .addModifiers(PUBLIC, FINAL)
+        .superclass(AdapterIndex.class)
+        .addMethod(MethodSpec.constructorBuilder()
+            .addModifiers(PUBLIC)
+            .addCode(superCall.build())
+            .build())
+        .addMethod(create.build())
+        .build();
+    JavaFile.builder(packageName, index)
+        .addFileComment(AdapterJavadocs.GENERATED_BY_DAGGER)
+        .build()
+        .writeTo(processingEnv.getFiler());
+    indexNames.add(packageName.isEmpty() ? simpleName : packageName + "." + simpleName);
+  }
+
+  private void writeResource() throws IOException {
+    if (indexNames.isEmpty()) {
+      return;
+    }
+    FileObject resource = processingEnv.getFiler()
+        .createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+    Writer writer = new OutputStreamWriter(resource.openOutputStream(), "UTF-8");
+    try {
+      for (String indexName : indexNames) {
+        writer.write(indexName);
+        writer.write('\n');
+      }
+    } finally {
+      writer.close();
+    }
+  }
+}
@@ -44,6 +44,9 @@ public final class AdapterJavadocs {
       + "instance provision of types served by {@code @$T} methods.\n";
   static final String STATIC_INJECTION_TYPE = ""
       + "A manager for {@code $T}'s injections into static fields.\n";
+  static final String ADAPTER_INDEX_TYPE = ""
+      + "Creates the adapters generated in one round of compilation without\n"
+      + "reflection.\n";
 
   /** Creates an appropriate javadoc depending on aspects of the type in question. */
   static CodeBlock bindingTypeDocs(
@@ -40,15 +40,18 @@ final class GraphAnalysisInjectBinding extends Binding<Object> {
   private final List<String> keys;
   private final Binding<?>[] bindings;
   private final String supertypeKey;
+  private final boolean hasInjections;
+  private Binding<?> supertypeBinding;
 
   private GraphAnalysisInjectBinding(String provideKey, String membersKey,
-      TypeElement type, List<String> keys, String supertypeKey) {
+      TypeElement type, List<String> keys, String supertypeKey, boolean hasInjections) {
     super(provideKey, membersKey, type.getAnnotation(Singleton.class) != null,
         type.getQualifiedName().toString());
     this.type = type;
     this.keys = keys;
     this.bindings = new Binding<?>[keys.size()];
     this.supertypeKey = supertypeKey;
+    this.hasInjections = hasInjections;
   }
 
   static GraphAnalysisInjectBinding create(TypeElement type, boolean mustHaveInjections) {
@@ -109,7 +112,13 @@ final class GraphAnalysisInjectBinding extends Binding<Object> {
         ? GeneratorKeys.get(type.asType())
         : null;
     String membersKey = GeneratorKeys.rawMembersKey(type.asType());
-    return new GraphAnalysisInjectBinding(provideKey, membersKey, type, requiredKeys, supertypeKey);
+    return new GraphAnalysisInjectBinding(provideKey, membersKey, type, requiredKeys, supertypeKey,
+        hasInjectConstructor || !requiredKeys.isEmpty());
+  }
+
+  /** True if an inject adapter is generated for this binding's type. */
+  boolean hasInjections() {
+    return hasInjections;
   }
 
   private static boolean hasAtInject(Element enclosed) {
@@ -128,7 +137,8 @@ final class GraphAnalysisInjectBinding extends Binding<Object> {
     }
     if (supertypeKey != null) {
       // Force the binding lookup.
-      linker.requestBinding(supertypeKey, requiredBy, getClass().getClassLoader(), false, true);
+      supertypeBinding = linker.requestBinding(supertypeKey, requiredBy,
+          getClass().getClassLoader(), false, true);
     }
   }
 
@@ -142,5 +152,8 @@ final class GraphAnalysisInjectBinding extends Binding<Object> {
 
   @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
     Collections.addAll(get, bindings);
+    if (supertypeBinding != null) {
+      injectMembers.add(supertypeBinding);
+    }
   }
 }
@@ -20,11 +20,15 @@ import dagger.internal.Binding;
 import dagger.internal.Loader;
 import dagger.internal.ModuleAdapter;
 import dagger.internal.StaticInjection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 
+import static dagger.internal.loaders.GeneratedAdapters.INJECT_ADAPTER_SUFFIX;
+
 /**
  * A {@code Binding.Resolver} suitable for tool use at build time. The bindings created by
  * this {@code Binding.Resolver} have the correct dependency graph, but do not implement
@@ -34,11 +38,20 @@ import javax.lang.model.util.Elements;
 public final class GraphAnalysisLoader extends Loader {
 
   private final ProcessingEnvironment processingEnv;
+  private final Map<String, String> injectAdapters = new LinkedHashMap<String, String>();
 
   public GraphAnalysisLoader(ProcessingEnvironment processingEnv) {
     this.processingEnv = processingEnv;
   }
 
+  /**
+   * Returns the binary names of the inject adapters generated for the
+   * bindings that this loader created, by key.
+   */
+  public Map<String, String> injectAdapters() {
+    return injectAdapters;
+  }
+
   @Override public Binding<?> getAtInjectBinding(
       String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
     TypeElement type = resolveType(processingEnv.getElementUtils(), className);
@@ -52,7 +65,16 @@ public final class GraphAnalysisLoader extends Loader {
     if (type.getKind() == ElementKind.INTERFACE) {
       return null;
     }
-    return GraphAnalysisInjectBinding.create(type, mustHaveInjections);
+    GraphAnalysisInjectBinding binding =
+        GraphAnalysisInjectBinding.create(type, mustHaveInjections);
+    if (binding.hasInjections()) {
+      String adapter = processingEnv.getElementUtils().getBinaryName(type) + INJECT_ADAPTER_SUFFIX;
+      if (binding.provideKey != null) {
+        injectAdapters.put(binding.provideKey, adapter);
+      }
+      injectAdapters.put(binding.membersKey, adapter);
+    }
+    return binding;
   }
 
   /**
@@ -20,6 +20,7 @@ import dagger.Provides;
 import dagger.internal.Binding;
 import dagger.internal.Binding.InvalidBindingException;
 import dagger.internal.BindingsGroup;
+import dagger.internal.GraphManifest;
 import dagger.internal.Linker;
 import dagger.internal.ProblemDetector;
 import dagger.internal.ProvidesBinding;
@@ -33,6 +34,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -62,6 +65,7 @@ import static dagger.internal.codegen.Util.className;
 import static dagger.internal.codegen.Util.getAnnotation;
 import static dagger.internal.codegen.Util.getPackage;
 import static dagger.internal.codegen.Util.isInterface;
+import static dagger.internal.loaders.GeneratedAdapters.GRAPH_MANIFEST_SUFFIX;
 import static java.util.Arrays.asList;
 
 /**
@@ -74,6 +78,9 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
 
   private final Set<String> delayedModuleNames = new LinkedHashSet<String>();
 
+  /** The number of errors reported so far. */
+  private int errorCount;
+
   @Override public SourceVersion getSupportedSourceVersion() {
     return SourceVersion.latestSupported();
   }
@@ -114,11 +121,16 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
         error("Missing @Module annotation.", moduleType);
         continue;
       }
+      int previousErrorCount = errorCount;
+      Map<String, Binding<?>> validatedBindings = null;
+      Set<String> boundKeys = new HashSet<String>();
+      Map<String, String> injectAdapters = new HashMap<String, String>();
       if (annotation.get("complete").equals(Boolean.TRUE)) {
         Map<String, Binding<?>> bindings;
+        List<String> cycles;
         try {
-          bindings = processCompleteModule(moduleType, false);
-          new ProblemDetector().detectCircularDependencies(bindings.values());
+          bindings = processCompleteModule(moduleType, false, boundKeys, injectAdapters);
+          cycles = new ProblemDetector().findCycles(bindings.values());
         } catch (ModuleValidationException e) {
           error("Graph validation failed: " + e.getMessage(), e.source);
           continue;
@@ -133,6 +145,12 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
               + e.getMessage(), moduleType);
           continue;
         }
+        if (!cycles.isEmpty()) {
+          for (String cycle : cycles) {
+            error("Graph validation failed: " + cycle, moduleType);
+          }
+          continue;
+        }
         try {
           writeDotFile(moduleType, bindings);
         } catch (IOException e) {
@@ -142,34 +160,67 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
               .printMessage(Diagnostic.Kind.WARNING,
                   "Graph visualization failed. Please report this as a bug.\n\n" + sw, moduleType);
         }
+        validatedBindings = bindings;
       }
 
       if (annotation.get("library").equals(Boolean.FALSE)) {
-        Map<String, Binding<?>> bindings = processCompleteModule(moduleType, true);
+        Map<String, Binding<?>> bindings = processCompleteModule(moduleType, true, null, null);
         try {
           new ProblemDetector().detectUnusedBinding(bindings.values());
         } catch (IllegalStateException e) {
           error("Graph validation failed: " + e.getMessage(), moduleType);
         }
       }
+
+      if (validatedBindings != null && errorCount == previousErrorCount) {
+        try {
+          writeGraphManifest(moduleType, validatedBindings, boundKeys, injectAdapters);
+        } catch (IOException e) {
+          StringWriter sw = new StringWriter();
+          e.printStackTrace(new PrintWriter(sw));
+          processingEnv.getMessager()
+              .printMessage(Diagnostic.Kind.WARNING,
+                  "Graph manifest failed. Please report this as a bug.\n\n" + sw, moduleType);
+        }
+      }
     }
     return false;
   }
 
   private void error(String message, Element element) {
+    errorCount++;
     processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
   }
 
+  /**
+   * Returns the linked bindings of {@code rootModule}'s graph.
+   *
+   * @param boundKeys if non-null, receives the keys bound by the graph's
+   *     modules.
+   * @param injectAdapters if non-null, receives the binary names of the inject
+   *     adapters of the graph's just-in-time bindings, by key.
+   */
   private Map<String, Binding<?>> processCompleteModule(TypeElement rootModule,
-      boolean ignoreCompletenessErrors) {
+      boolean ignoreCompletenessErrors, Set<String> boundKeys,
+      Map<String, String> injectAdapters) {
     Map<String, TypeElement> allModules = new LinkedHashMap<String, TypeElement>();
     collectIncludesRecursively(rootModule, allModules, new LinkedList<String>());
     ArrayList<GraphAnalysisStaticInjection> staticInjections =
         new ArrayList<GraphAnalysisStaticInjection>();
 
-    Linker.ErrorHandler errorHandler = ignoreCompletenessErrors ? Linker.ErrorHandler.NULL
-        : new GraphAnalysisErrorHandler(processingEnv, rootModule.getQualifiedName().toString());
-    Linker linker = new Linker(null, new GraphAnalysisLoader(processingEnv), errorHandler);
+    Linker.ErrorHandler errorHandler = Linker.ErrorHandler.NULL;
+    if (!ignoreCompletenessErrors) {
+      final Linker.ErrorHandler reporter =
+          new GraphAnalysisErrorHandler(processingEnv, rootModule.getQualifiedName().toString());
+      errorHandler = new Linker.ErrorHandler() {
+        @Override public void handleErrors(List<String> errors) {
+          errorCount += errors.size();
+          reporter.handleErrors(errors);
+        }
+      };
+    }
+    GraphAnalysisLoader loader = new GraphAnalysisLoader(processingEnv);
+    Linker linker = new Linker(null, loader, errorHandler);
     // Linker requires synchronization for calls to requestBinding and linkAll.
     // We know statically that we're single threaded, but we synchronize anyway
     // to make the linker happy.
@@ -262,6 +313,14 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
         }
       }
 
+      if (boundKeys != null) {
+        for (Map.Entry<String, Binding<?>> entry : baseBindings.entrySet()) {
+          boundKeys.add(entry.getKey());
+        }
+        for (Map.Entry<String, Binding<?>> entry : overrideBindings.entrySet()) {
+          boundKeys.add(entry.getKey());
+        }
+      }
       linker.installBindings(baseBindings);
       linker.installBindings(overrideBindings);
       for (GraphAnalysisStaticInjection staticInjection : staticInjections) {
@@ -270,7 +329,11 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
 
       // Link the bindings. This will traverse the dependency graph, and report
       // errors if any dependencies are missing.
-      return linker.linkAll();
+      Map<String, Binding<?>> result = linker.linkAll();
+      if (injectAdapters != null) {
+        injectAdapters.putAll(loader.injectAdapters());
+      }
+      return result;
     }
   }
 
@@ -365,6 +428,73 @@ public final class GraphAnalysisProcessor extends AbstractProcessor {
     }
   }
 
+  /**
+   * Writes the graph manifest of {@code rootModule}, which has passed
+   * validation, so that {@code ObjectGraph.validate()} can skip validating the
+   * same graph at runtime. No manifest is written for a graph whose runtime
+   * validation would check more than this processor did: one that extends
+   * another graph, or a library module's graph that includes modules that
+   * aren't libraries.
+   */
+  private void writeGraphManifest(TypeElement rootModule, Map<String, Binding<?>> bindings,
+      Set<String> boundKeys, Map<String, String> injectAdapters) throws IOException {
+    Map<String, TypeElement> allModules = new LinkedHashMap<String, TypeElement>();
+    collectIncludesRecursively(rootModule, allModules, new LinkedList<String>());
+    boolean unusedBindingsDetected =
+        getAnnotation(Module.class, rootModule).get("library").equals(Boolean.FALSE);
+    List<String> moduleDescriptions = new ArrayList<String>();
+    for (TypeElement module : allModules.values()) {
+      Map<String, Object> annotation = getAnnotation(Module.class, module);
+      if (!annotation.get("addsTo").equals(Void.class)) {
+        return;
+      }
+      boolean library = (Boolean) annotation.get("library");
+      if (!library && !unusedBindingsDetected) {
+        return;
+      }
+      List<String> injectableTypes = new ArrayList<String>();
+      for (Object injectableType : (Object[]) annotation.get("injects")) {
+        TypeMirror typeMirror = (TypeMirror) injectableType;
+        injectableTypes.add(isInterface(typeMirror)
+            ? GeneratorKeys.get(typeMirror)
+            : GeneratorKeys.rawMembersKey(typeMirror));
+      }
+      moduleDescriptions.add(GraphManifest.describeModule(
+          elements().getBinaryName(module).toString(),
+          (Boolean) annotation.get("overrides"),
+          (Boolean) annotation.get("complete"),
+          library,
+          injectableTypes,
+          binaryNames((Object[]) annotation.get("includes")),
+          binaryNames((Object[]) annotation.get("staticInjections"))));
+    }
+
+    String path = getPackage(rootModule).getQualifiedName().toString();
+    String name = elements().getBinaryName(rootModule).toString();
+    String file = (path.isEmpty() ? name : name.substring(path.length() + 1))
+        + GRAPH_MANIFEST_SUFFIX;
+    FileObject resource = processingEnv.getFiler()
+        .createResource(StandardLocation.CLASS_OUTPUT, path, file, rootModule);
+    Writer writer = resource.openWriter();
+    try {
+      GraphManifest.write(writer, moduleDescriptions, boundKeys, bindings, injectAdapters);
+    } finally {
+      writer.close();
+    }
+  }
+
+  /** Returns the binary names of the types in {@code types}, skipping other values. */
+  private List<String> binaryNames(Object[] types) {
+    List<String> result = new ArrayList<String>();
+    for (Object type : types) {
+      if (type instanceof TypeMirror) {
+        Element element = processingEnv.getTypeUtils().asElement((TypeMirror) type);
+        result.add(elements().getBinaryName((TypeElement) element).toString());
+      }
+    }
+    return result;
+  }
+
   void writeDotFile(TypeElement module, Map<String, Binding<?>> bindings) throws IOException {
     JavaFileManager.Location location = StandardLocation.SOURCE_OUTPUT;
     String path = getPackage(module).getQualifiedName().toString();
@@ -34,6 +34,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.inject.Inject;
@@ -59,6 +60,7 @@ import static dagger.internal.codegen.Util.getPackage;
 import static dagger.internal.codegen.Util.injectableType;
 import static dagger.internal.codegen.Util.isCallableConstructor;
 import static dagger.internal.codegen.Util.rawTypeToString;
+import static dagger.internal.loaders.GeneratedAdapters.INJECT_ADAPTER_INDEXES;
 import static dagger.internal.loaders.GeneratedAdapters.INJECT_ADAPTER_SUFFIX;
 import static dagger.internal.loaders.GeneratedAdapters.STATIC_INJECTION_SUFFIX;
 import static javax.lang.model.element.Modifier.ABSTRACT;
@@ -74,6 +76,12 @@ import static javax.lang.model.element.Modifier.STATIC;
 @SupportedAnnotationTypes("javax.inject.Inject")
 public final class InjectAdapterProcessor extends AbstractProcessor {
   private final Set<String> remainingTypeNames = new LinkedHashSet<String>();
+  private AdapterIndexWriter indexWriter;
+
+  @Override public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    indexWriter = new AdapterIndexWriter(processingEnv, INJECT_ADAPTER_INDEXES);
+  }
 
   @Override public SourceVersion getSupportedSourceVersion() {
     return SourceVersion.latestSupported();
@@ -102,6 +110,7 @@ public final class InjectAdapterProcessor extends AbstractProcessor {
       processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
           "Could not find injection type required by " + remainingTypeNames);
     }
+    indexWriter.roundComplete(env);
     return false;
   }
 
@@ -296,6 +305,7 @@ public final class InjectAdapterProcessor extends AbstractProcessor {
         .addFileComment(AdapterJavadocs.GENERATED_BY_DAGGER)
         .build();
     javaFile.writeTo(processingEnv.getFiler());
+    indexWriter.add(adapterClassName);
   }
 
   /**
@@ -321,6 +331,7 @@ public final class InjectAdapterProcessor extends AbstractProcessor {
         .addFileComment(AdapterJavadocs.GENERATED_BY_DAGGER)
         .build();
     javaFile.writeTo(processingEnv.getFiler());
+    indexWriter.add(adapterClassName);
   }
 
   private FieldSpec memberBindingField(boolean disambiguateFields, Element field) {
@@ -44,6 +44,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.inject.Provider;
@@ -70,6 +71,7 @@ import static dagger.internal.codegen.Util.getNoArgsConstructor;
 import static dagger.internal.codegen.Util.isCallableConstructor;
 import static dagger.internal.codegen.Util.isInterface;
 import static dagger.internal.codegen.Util.typeToString;
+import static dagger.internal.loaders.GeneratedAdapters.MODULE_ADAPTER_INDEXES;
 import static dagger.internal.loaders.GeneratedAdapters.MODULE_ADAPTER_SUFFIX;
 import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.FINAL;
@@ -88,6 +90,12 @@ public final class ModuleAdapterProcessor extends AbstractProcessor {
 
   private final LinkedHashMap<String, List<ExecutableElement>> remainingTypes =
       new LinkedHashMap<String, List<ExecutableElement>>();
+  private AdapterIndexWriter indexWriter;
+
+  @Override public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    indexWriter = new AdapterIndexWriter(processingEnv, MODULE_ADAPTER_INDEXES);
+  }
 
   @Override public SourceVersion getSupportedSourceVersion() {
     return SourceVersion.latestSupported();
@@ -110,6 +118,7 @@ public final class ModuleAdapterProcessor extends AbstractProcessor {
         }
         JavaFile javaFile = generateModuleAdapter(type, parsedAnnotation, providesTypes);
         javaFile.writeTo(processingEnv.getFiler());
+        indexWriter.add(ClassName.get(javaFile.packageName, javaFile.typeSpec.name));
       } catch (CodeGenerationIncompleteException e) {
         continue; // A dependent type was not defined, we'll try to catch it on another pass.
       } catch (IOException e) {
@@ -121,6 +130,7 @@ public final class ModuleAdapterProcessor extends AbstractProcessor {
       processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
           "Could not find types required by provides methods for " + remainingTypes.keySet());
     }
+    indexWriter.roundComplete(env);
     return false; // FullGraphProcessor needs an opportunity to process.
   }
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.tests.integration.codegen;
+
+import com.google.common.io.ByteSource;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static dagger.tests.integration.ProcessorTestUtils.daggerProcessors;
+
+@RunWith(JUnit4.class)
+public final class AdapterIndexGenerationTest {
+  @Test public void adapterIndexes() {
+    JavaFileObject sourceFile = JavaFileObjects.forSourceString("test.Field", ""
+        + "package test;\n"
+        + "import dagger.Module;\n"
+        + "import javax.inject.Inject;\n"
+        + "class Field {\n"
+        + "  static class A { @Inject A() { } }\n"
+        + "  static class B { @Inject A a; }\n"
+        + "  @Module(injects = B.class)\n"
+        + "  static class AModule { }\n"
+        + "}\n"
+    );
+
+    JavaFileObject expectedInjectIndex =
+        JavaFileObjects.forSourceString("test.Daggereec20c8f$$AdapterIndex", ""
+            + "package test;\n"
+            + "import dagger.internal.AdapterIndex;\n"
+            + "import java.lang.IndexOutOfBoundsException;\n"
+            + "import java.lang.Object;\n"
+            + "import java.lang.Override;\n"
+            + "public final class Daggereec20c8f$$AdapterIndex extends AdapterIndex {\n"
+            + "  public Daggereec20c8f$$AdapterIndex() {\n"
+            + "    super(new String[] {\n"
+            + "      \"test.Field$A$$InjectAdapter\",\n"
+            + "      \"test.Field$B$$InjectAdapter\",\n"
+            + "    });\n"
+            + "  }\n"
+            + "  @Override protected Object create(int index) {\n"
+            + "    switch (index) {\n"
+            + "      case 0: return new Field$A$$InjectAdapter();\n"
+            + "      case 1: return new Field$B$$InjectAdapter();\n"
+            + "      default: throw new IndexOutOfBoundsException(String.valueOf(index));\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n"
+    );
+
+    JavaFileObject expectedModuleIndex =
+        JavaFileObjects.forSourceString("test.Daggerad9b23ae$$AdapterIndex", ""
+            + "package test;\n"
+            + "import dagger.internal.AdapterIndex;\n"
+            + "import java.lang.IndexOutOfBoundsException;\n"
+            + "import java.lang.Object;\n"
+            + "import java.lang.Override;\n"
+            + "public final class Daggerad9b23ae$$AdapterIndex extends AdapterIndex {\n"
+            + "  public Daggerad9b23ae$$AdapterIndex() {\n"
+            + "    super(new String[] {\n"
+            + "      \"test.Field$AModule$$ModuleAdapter\",\n"
+            + "    });\n"
+            + "  }\n"
+            + "  @Override protected Object create(int index) {\n"
+            + "    switch (index) {\n"
+            + "      case 0: return new Field$AModule$$ModuleAdapter();\n"
+            + "      default: throw new IndexOutOfBoundsException(String.valueOf(index));\n"
+            + "    }\n"
+            + "  }\n"
+            + "}\n"
+    );
+
+    assertAbout(javaSource()).that(sourceFile).processedWith(daggerProcessors())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedInjectIndex, expectedModuleIndex)
+        .and()
+        .generatesFileNamed(StandardLocation.CLASS_OUTPUT, "",
+            "META-INF/dagger/inject-adapter-indexes")
+        .withContents(ByteSource.wrap("test.Daggereec20c8f$$AdapterIndex\n".getBytes(UTF_8)))
+        .and()
+        .generatesFileNamed(StandardLocation.CLASS_OUTPUT, "",
+            "META-INF/dagger/module-adapter-indexes")
+        .withContents(ByteSource.wrap("test.Daggerad9b23ae$$AdapterIndex\n".getBytes(UTF_8)));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.tests.integration.codegen;
+
+import com.google.common.io.ByteSource;
+import com.google.testing.compile.JavaFileObjects;
+import dagger.internal.Binding;
+import dagger.internal.GraphManifest;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+import static dagger.tests.integration.ProcessorTestUtils.daggerProcessors;
+
+@RunWith(JUnit4.class)
+public final class GraphManifestGenerationTest {
+  @Test public void graphManifest() throws IOException {
+    JavaFileObject sourceFile = JavaFileObjects.forSourceString("test.Field", ""
+        + "package test;\n"
+        + "import dagger.Module;\n"
+        + "import dagger.Provides;\n"
+        + "import javax.inject.Inject;\n"
+        + "class Field {\n"
+        + "  static class A { @Inject A() { } }\n"
+        + "  static class B { @Inject A a; @Inject String s; }\n"
+        + "  @Module(library = true)\n"
+        + "  static class StringModule {\n"
+        + "    @Provides String provideString() { return \"s\"; }\n"
+        + "  }\n"
+        + "  @Module(injects = B.class, includes = StringModule.class)\n"
+        + "  static class AModule { }\n"
+        + "}\n"
+    );
+
+    Binding<?> a = new StubBinding("test.Field$A", "members/test.Field$A");
+    Binding<?> b = new StubBinding("test.Field$B", "members/test.Field$B",
+        new StubBinding("test.Field$A", null), new StubBinding("java.lang.String", null));
+    Map<String, Binding<?>> bindings = new LinkedHashMap<String, Binding<?>>();
+    bindings.put("java.lang.String", new StubBinding("java.lang.String", null));
+    bindings.put("members/test.Field$A", a);
+    bindings.put("test.Field$A", a);
+    bindings.put("members/test.Field$B", b);
+    bindings.put("test.Field$B", b);
+    Map<String, String> adapters = new LinkedHashMap<String, String>();
+    adapters.put("members/test.Field$A", "test.Field$A$$InjectAdapter");
+    adapters.put("test.Field$A", "test.Field$A$$InjectAdapter");
+    adapters.put("members/test.Field$B", "test.Field$B$$InjectAdapter");
+    adapters.put("test.Field$B", "test.Field$B$$InjectAdapter");
+
+    StringWriter expected = new StringWriter();
+    GraphManifest.write(expected,
+        Arrays.asList(
+            GraphManifest.describeModule("test.Field$AModule", false, true, false,
+                Arrays.asList("members/test.Field$B"), Arrays.asList("test.Field$StringModule"),
+                Collections.<String>emptyList()),
+            GraphManifest.describeModule("test.Field$StringModule", false, true, true,
+                Collections.<String>emptyList(), Collections.<String>emptyList(),
+                Collections.<String>emptyList())),
+        Arrays.asList("java.lang.String"), bindings, adapters);
+
+    assertAbout(javaSource()).that(sourceFile).processedWith(daggerProcessors())
+        .compilesWithoutError()
+        .and()
+        .generatesFileNamed(StandardLocation.CLASS_OUTPUT, "test",
+            "Field$AModule$$GraphManifest")
+        .withContents(ByteSource.wrap(expected.toString().getBytes(UTF_8)));
+  }
+
+  /** A binding with the given dependencies, to describe the expected manifest. */
+  static final class StubBinding extends Binding<Object> {
+    private final Binding<?>[] dependencies;
+
+    StubBinding(String provideKey, String membersKey, Binding<?>... dependencies) {
+      super(provideKey, membersKey, false, null);
+      this.dependencies = dependencies;
+    }
+
+    @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
+      Collections.addAll(get, dependencies);
+    }
+  }
+}
@@ -16,9 +16,13 @@
  */
 package dagger;
 
+import dagger.internal.AdapterPreloader;
 import dagger.internal.Binding;
 import dagger.internal.BindingsGroup;
+import dagger.internal.Binding.InvalidBindingException;
 import dagger.internal.FailoverLoader;
+import dagger.internal.GeneratedOnlyLoader;
+import dagger.internal.GraphManifest;
 import dagger.internal.Keys;
 import dagger.internal.Linker;
 import dagger.internal.Loader;
@@ -26,13 +30,30 @@ import dagger.internal.ModuleAdapter;
 import dagger.internal.Modules;
 import dagger.internal.ProblemDetector;
 import dagger.internal.SetBinding;
+import dagger.internal.SingletonWarmUp;
+import dagger.internal.StartupProfile;
 import dagger.internal.StaticInjection;
 import dagger.internal.ThrowingErrorHandler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.inject.Provider;
 
 
 /**
@@ -62,7 +83,7 @@ import java.util.Map.Entry;
  *   <li>Circular dependencies.</li>
  * </ul>
  */
-public abstract class ObjectGraph {
+public abstract class ObjectGraph implements Closeable {
   ObjectGraph() {
   }
 
@@ -83,6 +104,27 @@ public abstract class ObjectGraph {
    */
   public abstract <T> T inject(T instance);
 
+  /**
+   * Returns a provider of instances of {@code type}. The provider's binding is
+   * resolved once, when this method is called, so that repeated calls to
+   * {@link Provider#get} don't repeat the lookup done by {@link #get}.
+   *
+   * @throws IllegalArgumentException if {@code type} is not one of this object
+   *     graph's {@link Module#injects injectable types}.
+   */
+  public abstract <T> Provider<T> getProvider(Class<T> type);
+
+  /**
+   * Returns an injector for the members of instances of {@code type}. The
+   * injector's binding is resolved once, when this method is called, so that
+   * repeated calls to {@link MembersInjector#injectMembers} don't repeat the
+   * lookup done by {@link #inject}.
+   *
+   * @throws IllegalArgumentException if {@code type} is not one of this object
+   *     graph's {@link Module#injects injectable types}.
+   */
+  public abstract <T> MembersInjector<T> getMembersInjector(Class<T> type);
+
   /**
    * Returns a new object graph that includes all of the objects in this graph,
    * plus additional objects in the {@literal @}{@link Module}-annotated
@@ -102,16 +144,112 @@ public abstract class ObjectGraph {
    * Do runtime graph problem detection. For fastest graph creation, rely on
    * build time tools for graph validation.
    *
+   * <p>If Dagger's annotation processor validated a complete module of this
+   * graph, it wrote a graph manifest for it. When the module adapters that
+   * this graph loaded and the keys that their modules bind match that
+   * manifest, the graph is the one that was validated at build time: this
+   * method returns without linking it, and its bindings are linked lazily as
+   * they are used.
+   *
    * @throws IllegalStateException if this graph has problems.
    */
   public abstract void validate();
 
+  /**
+   * Like {@link #validate()}, but loads and creates just-in-time bindings
+   * concurrently on {@code executor}. This is useful for large graphs that
+   * rely on reflection or on many generated adapters. Problems are reported
+   * exactly as they are by {@link #validate()}.
+   *
+   * @throws IllegalStateException if this graph has problems.
+   */
+  public abstract void validate(Executor executor);
+
+  /**
+   * Like {@link #validate()}, but links and checks only the bindings reachable
+   * from {@code entryPoints}. Other bindings, static injections and the
+   * injectable types not listed stay unlinked until they are used. Use this
+   * when a process uses only some of the graph's injectable types.
+   *
+   * <p>Missing bindings and dependency cycles are detected among the reachable
+   * bindings. Unused bindings are not, since bindings that these entry points
+   * don't use may be used by others.
+   *
+   * @param entryPoints injectable types registered in the {@code injects}
+   *     option of one of this graph's modules.
+   * @throws IllegalArgumentException if an entry point isn't an injectable
+   *     type.
+   * @throws IllegalStateException if the reachable bindings have problems.
+   */
+  public abstract void validate(Class<?>... entryPoints);
+
+  /**
+   * Runs {@link #validate()} on {@code executor} and returns immediately. While
+   * it runs, {@link #get} and {@link #inject} return the injectable types that
+   * were already linked without waiting for it; other injectable types wait
+   * until the graph is linked.
+   *
+   * @param failGraphOnError true to make {@link #get}, {@link #inject}, {@link
+   *     #getProvider} and {@link #getMembersInjector} throw an {@link
+   *     IllegalStateException} once validation has failed.
+   * @return a future that completes once validation has succeeded, or fails
+   *     with the problems found.
+   */
+  public abstract Future<Void> validateAsync(Executor executor, boolean failGraphOnError);
+
+  /**
+   * Releases the singletons created by this graph and the state used to link
+   * it, so that they can be garbage collected even if a reference to this graph
+   * remains. Singletons that implement {@link Closeable} are closed, most
+   * recently created first. Use this to dispose of short-lived graphs created
+   * with {@link #plus}.
+   *
+   * <p>Afterwards this graph can't be used: {@link #get}, {@link #inject},
+   * {@link #plus} and the providers it returned for singletons throw an {@link
+   * IllegalStateException}. Base graphs are unaffected, but graphs that extend
+   * this graph can no longer get its singletons, so close them first. Calling
+   * this method again has no effect.
+   *
+   * @throws RuntimeException the first failure to close a singleton, after
+   *     all singletons have been released. An {@link IOException} is wrapped.
+   */
+  @Override public abstract void close();
+
+  /**
+   * Creates the singletons used by this graph ahead of time on {@code
+   * executor}, so that the first calls to {@link #get} and {@link #inject}
+   * don't pay for their construction. This links the graph on the calling
+   * thread. Each singleton is created after the singletons it depends on, and
+   * singletons that don't depend on each other are created concurrently.
+   *
+   * @return a future that completes once all singletons have been created. Its
+   *     value is the time taken to create the singletons bound to each key, in
+   *     nanoseconds. Singleton contributions to sets are keyed by their element
+   *     key, and their times add up. If a singleton can't be created, the
+   *     singletons that depend on it aren't created either, and the future
+   *     fails with that exception once the others have been created.
+   */
+  public abstract Future<Map<String, Long>> warmUp(Executor executor);
+
   /**
    * Injects the static fields of the classes listed in the object graph's
    * {@code staticInjections} property.
    */
   public abstract void injectStatics();
 
+  /**
+   * Writes the startup profile recorded by this graph to {@code out}. The
+   * profile lists, in order, the classes loaded and the just-in-time bindings
+   * created by this graph, its base graphs and the other graphs that extend
+   * them, followed by the singletons this graph has created. Pass it to {@link
+   * Builder#startupProfile} on the next run.
+   *
+   * @throws IllegalStateException if the graph that this graph extends, or
+   *     this graph itself, wasn't created by a builder that {@linkplain
+   *     Builder#recordStartupProfile records a startup profile}.
+   */
+  public abstract void writeStartupProfile(OutputStream out) throws IOException;
+
   /**
    * Returns a new dependency graph using the {@literal @}{@link
    * Module}-annotated modules.
@@ -129,11 +267,124 @@ public abstract class ObjectGraph {
     return DaggerObjectGraph.makeGraph(null, new FailoverLoader(), modules);
   }
 
+  /**
+   * Returns a builder that creates graphs like {@link #create}, with options
+   * to preload adapters, record or replay a startup profile, or use only
+   * generated adapters.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
   // visible for testing
   static ObjectGraph createWith(Loader loader, Object... modules) {
     return DaggerObjectGraph.makeGraph(null, loader, modules);
   }
 
+  /**
+   * Creates object graphs with options that {@link ObjectGraph#create} doesn't
+   * offer. Options combine with each other, and a builder may create any
+   * number of graphs. A builder without options creates the same graphs as
+   * {@link ObjectGraph#create}.
+   */
+  public static final class Builder {
+    private boolean withoutReflection;
+    private Executor preloadExecutor;
+    private boolean recordStartupProfile;
+    private StartupProfile startupProfile;
+    private Executor startupProfileExecutor;
+
+    Builder() {
+    }
+
+    /**
+     * Uses only the adapters generated by Dagger's annotation processor and
+     * never falls back to reflection. Graphs returned by {@link
+     * ObjectGraph#plus} on the created graphs do the same.
+     *
+     * <p>Types that have no generated adapter fail when the graph is linked:
+     * {@link ObjectGraph#validate}, {@link ObjectGraph#get}, {@link
+     * ObjectGraph#inject} and {@link ObjectGraph#injectStatics} throw an
+     * {@link IllegalStateException} that lists every such type they needed.
+     */
+    public Builder withoutReflection() {
+      withoutReflection = true;
+      return this;
+    }
+
+    /**
+     * Starts loading the adapters of the modules, of the modules they include
+     * and of their injectable types on {@code executor}. Graph creation
+     * continues on the calling thread without waiting, and finds the adapters'
+     * classes already loaded once the preloading has caught up. This speeds up
+     * the creation and first use of graphs that have many modules or
+     * injectable types.
+     *
+     * <p>The executor should have a few threads. Preloading is best effort: an
+     * adapter that fails to load is reported when the graph loads it, and
+     * adapters that the executor rejects are loaded by the graph as usual.
+     */
+    public Builder preloadAdapters(Executor executor) {
+      if (executor == null) throw new NullPointerException("executor");
+      preloadExecutor = executor;
+      return this;
+    }
+
+    /**
+     * Records the classes, bindings and singletons that each graph needs as it
+     * starts. Call {@link ObjectGraph#writeStartupProfile} once the
+     * application has started to save them.
+     */
+    public Builder recordStartupProfile() {
+      recordStartupProfile = true;
+      return this;
+    }
+
+    /**
+     * Replays a profile written by {@link ObjectGraph#writeStartupProfile} on
+     * {@code executor}: the classes it lists are loaded while the graph is
+     * created, and the just-in-time bindings it lists are created before the
+     * graph links them. The graph behaves exactly like one created without the
+     * profile; entries of an outdated profile are ignored. Singletons are not
+     * created; use {@link ObjectGraph#warmUp} for that, which starts with the
+     * singletons that the profile lists, in the order they were created when
+     * it was recorded.
+     *
+     * @param profile a profile, which this method reads but doesn't close.
+     */
+    public Builder startupProfile(InputStream profile, Executor executor) throws IOException {
+      if (executor == null) throw new NullPointerException("executor");
+      startupProfile = StartupProfile.read(profile);
+      startupProfileExecutor = executor;
+      return this;
+    }
+
+    /**
+     * Returns a new dependency graph using the {@literal @}{@link
+     * Module}-annotated modules, with this builder's options. Like {@link
+     * ObjectGraph#create}, this neither injects members nor validates the
+     * graph.
+     */
+    public ObjectGraph create(Object... modules) {
+      Loader loader = withoutReflection ? new GeneratedOnlyLoader() : new FailoverLoader();
+      if (recordStartupProfile) {
+        new StartupProfile().recordWith(loader, modules);
+      }
+      if (preloadExecutor != null) {
+        AdapterPreloader.start(loader, modules, preloadExecutor);
+      }
+      if (startupProfile == null) {
+        return DaggerObjectGraph.makeGraph(null, loader, modules);
+      }
+      startupProfile.preloadClasses(loader, modules, startupProfileExecutor);
+      DaggerObjectGraph graph =
+          (DaggerObjectGraph) DaggerObjectGraph.makeGraph(null, loader, modules);
+      startupProfile.prefetchBindings(graph.linker, modules, startupProfileExecutor);
+      graph.startupSingletonKeys = startupProfile.singletonKeys();
+      return graph;
+    }
+  }
+
   // TODO(cgruber): Move this internal implementation of ObjectGraph into the internal package.
   static class DaggerObjectGraph extends ObjectGraph {
     private final DaggerObjectGraph base;
@@ -141,14 +392,75 @@ public abstract class ObjectGraph {
     private final Loader plugin;
     private final Map<Class<?>, StaticInjection> staticInjections;
     private final Map<String, Class<?>> injectableTypes;
-    private final List<SetBinding<?>> setBindings;
+    private final Map<String, SetBinding<?>> setBindings;
+
+    /**
+     * An immutable table of the linked bindings of this graph's injectable
+     * types, keyed by the key passed to {@link #getInjectableTypeBinding}. This
+     * is published once the graph is fully linked so that steady-state calls to
+     * {@link #get} and {@link #inject} don't need to lock the linker, and when
+     * {@link #validateAsync} starts so that they don't wait for it. Null until
+     * then.
+     */
+    private volatile Map<String, Binding<?>> linkedEntryPoints;
+
+    /**
+     * The injectable types of this graph and its base graphs, so that child
+     * graphs can find any ancestor's injectable type with a single lookup.
+     * Built on demand and shared by all child graphs.
+     */
+    private volatile Map<String, Class<?>> flattenedInjectableTypes;
+
+    /**
+     * The bindings returned for classes passed to {@link #get} and {@link
+     * #getProvider}, so that repeated calls don't recompute keys. Only classes
+     * whose loader {@linkplain Loader#outlivesDagger outlives Dagger} are
+     * cached, so that this map never keeps another class loader reachable.
+     */
+    private final ConcurrentHashMap<Class<?>, Binding<?>> providesBindings =
+        new ConcurrentHashMap<Class<?>, Binding<?>>();
+
+    /**
+     * The bindings returned for classes passed to {@link #inject} and {@link
+     * #getMembersInjector}, cached like {@link #providesBindings}.
+     */
+    private final ConcurrentHashMap<Class<?>, Binding<?>> membersBindings =
+        new ConcurrentHashMap<Class<?>, Binding<?>>();
+
+    /** True once {@link #close} has been called. */
+    private volatile boolean closed;
+
+    /**
+     * The keys of the singletons that {@link #warmUp} creates first, from the
+     * startup profile this graph was created with.
+     */
+    private List<String> startupSingletonKeys = Collections.emptyList();
+
+    /**
+     * The module adapters of this graph if it doesn't extend another graph, or
+     * null. Used with the keys its modules bind to find its graph manifest.
+     */
+    private Collection<ModuleAdapter<?>> moduleAdapters;
+
+    /** The bindings of this graph's modules if {@link #moduleAdapters} is set. */
+    private BindingsGroup baseBindings;
+    private BindingsGroup overrideBindings;
+
+    /**
+     * The failure of validation started by {@link #validateAsync} that fails
+     * this graph, or null.
+     */
+    private volatile Throwable validationFailure;
+
+    /** Whether this graph matches a graph manifest, or null if not yet known. */
+    private volatile Boolean matchesGraphManifest;
 
     DaggerObjectGraph(DaggerObjectGraph base,
         Linker linker,
         Loader plugin,
         Map<Class<?>, StaticInjection> staticInjections,
         Map<String, Class<?>> injectableTypes,
-        List<SetBinding<?>> setBindings) {
+        Map<String, SetBinding<?>> setBindings) {
 
       this.base = base;
       this.linker = checkNotNull(linker, "linker");
@@ -164,22 +476,39 @@ public abstract class ObjectGraph {
     }
 
     static ObjectGraph makeGraph(DaggerObjectGraph base, Loader plugin, Object... modules) {
+      Map<ModuleAdapter<?>, Object> loadedModules = Modules.loadModules(plugin, modules);
       Map<String, Class<?>> injectableTypes = new LinkedHashMap<String, Class<?>>();
+      List<Class<?>> staticInjections = new ArrayList<Class<?>>();
+      collectEntryPoints(loadedModules.keySet(), injectableTypes, staticInjections);
+      return makeGraph(base, plugin, loadedModules, injectableTypes, staticInjections);
+    }
+
+    private static void collectEntryPoints(Collection<ModuleAdapter<?>> moduleAdapters,
+        Map<String, Class<?>> injectableTypes, List<Class<?>> staticInjections) {
+      for (ModuleAdapter<?> moduleAdapter : moduleAdapters) {
+        for (int i = 0; i < moduleAdapter.injectableTypes.length; i++) {
+          injectableTypes.put(moduleAdapter.injectableTypes[i], moduleAdapter.moduleClass);
+        }
+        for (int i = 0; i < moduleAdapter.staticInjections.length; i++) {
+          staticInjections.add(moduleAdapter.staticInjections[i]);
+        }
+      }
+    }
+
+    private static ObjectGraph makeGraph(DaggerObjectGraph base, Loader plugin,
+        Map<ModuleAdapter<?>, Object> loadedModules, Map<String, Class<?>> injectableTypes,
+        List<Class<?>> staticInjectionTypes) {
       Map<Class<?>, StaticInjection> staticInjections
           = new LinkedHashMap<Class<?>, StaticInjection>();
+      for (int i = 0; i < staticInjectionTypes.size(); i++) {
+        staticInjections.put(staticInjectionTypes.get(i), null);
+      }
       StandardBindings baseBindings =
           (base == null) ? new StandardBindings() : new StandardBindings(base.setBindings);
       BindingsGroup overrideBindings = new OverridesBindings();
 
-      Map<ModuleAdapter<?>, Object> loadedModules = Modules.loadModules(plugin, modules);
       for (Entry<ModuleAdapter<?>, Object> loadedModule : loadedModules.entrySet()) {
         ModuleAdapter<Object> moduleAdapter = (ModuleAdapter<Object>) loadedModule.getKey();
-        for (int i = 0; i < moduleAdapter.injectableTypes.length; i++) {
-          injectableTypes.put(moduleAdapter.injectableTypes[i], moduleAdapter.moduleClass);
-        }
-        for (int i = 0; i < moduleAdapter.staticInjections.length; i++) {
-          staticInjections.put(moduleAdapter.staticInjections[i], null);
-        }
         try {
           BindingsGroup addTo = moduleAdapter.overrides ? overrideBindings : baseBindings;
           moduleAdapter.getBindings(addTo, loadedModule.getValue());
@@ -195,24 +524,55 @@ public abstract class ObjectGraph {
       linker.installBindings(baseBindings);
       linker.installBindings(overrideBindings);
 
-      return new DaggerObjectGraph(
-          base, linker, plugin, staticInjections, injectableTypes, baseBindings.setBindings);
+      DaggerObjectGraph graph = new DaggerObjectGraph(base, linker, plugin, staticInjections,
+          injectableTypes, baseBindings.visibleSetBindings());
+      if (base == null) {
+        graph.moduleAdapters = loadedModules.keySet();
+        graph.baseBindings = baseBindings;
+        graph.overrideBindings = overrideBindings;
+      }
+      return graph;
+    }
+
+    /** Returns the sorted keys bound by this graph's modules. */
+    private List<String> boundKeys() {
+      Set<String> result = new TreeSet<String>();
+      for (Entry<String, Binding<?>> entry : baseBindings.entrySet()) {
+        result.add(entry.getKey());
+      }
+      for (Entry<String, Binding<?>> entry : overrideBindings.entrySet()) {
+        result.add(entry.getKey());
+      }
+      return new ArrayList<String>(result);
+    }
+
+    private void checkNotClosed() {
+      if (closed) {
+        throw new IllegalStateException("This object graph is closed.");
+      }
     }
 
     @Override public ObjectGraph plus(Object... modules) {
-      linkEverything();
+      linkEverything(null);
       return makeGraph(this, plugin, modules);
     }
 
     private void linkStaticInjections() {
+      List<String> errors = new ArrayList<String>();
       for (Map.Entry<Class<?>, StaticInjection> entry : staticInjections.entrySet()) {
         StaticInjection staticInjection = entry.getValue();
         if (staticInjection == null) {
-          staticInjection = plugin.getStaticInjection(entry.getKey());
+          try {
+            staticInjection = plugin.getStaticInjection(entry.getKey());
+          } catch (InvalidBindingException e) {
+            errors.add(e.type + " " + e.getMessage());
+            continue;
+          }
           entry.setValue(staticInjection);
         }
         staticInjection.attach(linker);
       }
+      new ThrowingErrorHandler().handleErrors(errors);
     }
 
     private void linkInjectableTypes() {
@@ -223,26 +583,215 @@ public abstract class ObjectGraph {
     }
 
     @Override public void validate() {
-      Map<String, Binding<?>> allBindings = linkEverything();
-      new ProblemDetector().detectProblems(allBindings.values());
+      if (!matchesGraphManifest()) {
+        Map<String, Binding<?>> allBindings = linkEverything(null);
+        new ProblemDetector().detectProblems(allBindings.values());
+      }
+    }
+
+    @Override public void validate(Executor executor) {
+      if (executor == null) throw new NullPointerException("executor");
+      if (!matchesGraphManifest()) {
+        Map<String, Binding<?>> allBindings = linkEverything(executor);
+        new ProblemDetector().detectProblems(allBindings.values());
+      }
+    }
+
+    @Override public void validate(Class<?>... entryPoints) {
+      String[] keys = new String[entryPoints.length];
+      Class<?>[] moduleClasses = new Class<?>[entryPoints.length];
+      for (int i = 0; i < entryPoints.length; i++) {
+        keys[i] = entryPoints[i].isInterface()
+            ? Keys.get(entryPoints[i])
+            : Keys.getMembersKey(entryPoints[i]);
+        moduleClasses[i] = injectableTypeModule(keys[i]);
+      }
+      List<Binding<?>> roots = new ArrayList<Binding<?>>();
+      synchronized (linker) {
+        checkNotClosed();
+        for (int i = 0; i < entryPoints.length; i++) {
+          linker.requestBinding(keys[i], moduleClasses[i], entryPoints[i].getClassLoader(), false,
+              true);
+        }
+        linker.linkRequested();
+        for (int i = 0; i < entryPoints.length; i++) {
+          roots.add(linker.requestBinding(keys[i], moduleClasses[i],
+              entryPoints[i].getClassLoader(), false, true));
+        }
+        new ProblemDetector().detectCircularDependencies(roots);
+      }
+    }
+
+    @Override public Future<Void> validateAsync(Executor executor,
+        final boolean failGraphOnError) {
+      if (executor == null) throw new NullPointerException("executor");
+      synchronized (linker) {
+        checkNotClosed();
+        if (linkedEntryPoints == null) {
+          // Publish the entry points linked so far; get() needs the lock for the others.
+          linkedEntryPoints = collectLinkedEntryPoints();
+        }
+      }
+      FutureTask<Void> result = new FutureTask<Void>(new Callable<Void>() {
+        @Override public Void call() {
+          try {
+            validate();
+            return null;
+          } catch (RuntimeException e) {
+            if (failGraphOnError) validationFailure = e;
+            throw e;
+          } catch (Error e) {
+            if (failGraphOnError) validationFailure = e;
+            throw e;
+          }
+        }
+      });
+      executor.execute(result);
+      return result;
+    }
+
+    private void checkNotFailed() {
+      Throwable failure = validationFailure;
+      if (failure != null) {
+        throw new IllegalStateException("Validation of this object graph failed.", failure);
+      }
+    }
+
+    /**
+     * True if this graph's module adapters and bound keys match the graph
+     * manifest of one of its modules, so that it passed validation at build
+     * time. This doesn't link the graph.
+     */
+    private boolean matchesGraphManifest() {
+      Boolean result = matchesGraphManifest;
+      if (result == null) {
+        result = moduleAdapters != null
+            && GraphManifest.find(moduleAdapters, boundKeys()) != null;
+        matchesGraphManifest = result;
+      }
+      return result;
     }
 
     /**
      * Links all bindings, injectable types and static injections.
+     *
+     * @param executor the executor on which to create just-in-time bindings, or
+     *     null to create them on the calling thread.
      */
-    private Map<String, Binding<?>> linkEverything() {
+    private Map<String, Binding<?>> linkEverything(Executor executor) {
       Map<String, Binding<?>> bindings = linker.fullyLinkedBindings();
       if (bindings != null) {
         return bindings;
       }
       synchronized (linker) {
+        checkNotClosed();
         if ((bindings = linker.fullyLinkedBindings()) != null) {
           return bindings;
         }
         linkStaticInjections();
         linkInjectableTypes();
-        return linker.linkAll(); // Linker.linkAll() implicitly does Linker.linkRequested().
+        // Linker.linkAll() implicitly does Linker.linkRequested().
+        bindings = (executor != null) ? linker.linkAll(executor) : linker.linkAll();
+        linkedEntryPoints = collectLinkedEntryPoints();
+        return bindings;
+      }
+    }
+
+    /**
+     * Returns the linked bindings for the injectable types of this graph and
+     * its base graphs. Class types are registered under both their members key
+     * (for {@link #inject}) and their provider key (for {@link #get}). Types
+     * whose bindings aren't linked are omitted and will be looked up with the
+     * linker held.
+     */
+    private Map<String, Binding<?>> collectLinkedEntryPoints() {
+      Map<String, Binding<?>> result = new HashMap<String, Binding<?>>();
+      for (String injectableKey : flattenedInjectableTypes().keySet()) {
+        putLinkedBinding(result, injectableKey);
+        String providerKey = Keys.getClassName(injectableKey);
+        if (providerKey != null && !providerKey.equals(injectableKey)) {
+          putLinkedBinding(result, providerKey);
+        }
+      }
+      return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the injectable types of this graph and its base graphs. Where
+     * several graphs register a type, the module nearest to this graph is used.
+     */
+    private Map<String, Class<?>> flattenedInjectableTypes() {
+      if (base == null) {
+        return injectableTypes;
+      }
+      Map<String, Class<?>> result = flattenedInjectableTypes;
+      if (result == null) {
+        // Racing threads may each build this map; they're all equivalent.
+        result = new HashMap<String, Class<?>>(base.flattenedInjectableTypes());
+        result.putAll(injectableTypes);
+        flattenedInjectableTypes = result;
+      }
+      return result;
+    }
+
+    private void putLinkedBinding(Map<String, Binding<?>> entryPoints, String key) {
+      Binding<?> binding = linker.getLinkedBinding(key);
+      if (binding != null) {
+        entryPoints.put(key, binding);
+      }
+    }
+
+    @Override public void close() {
+      List<Object> instances;
+      synchronized (linker) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        linkedEntryPoints = null;
+        providesBindings.clear();
+        membersBindings.clear();
+        instances = linker.close();
       }
+
+      RuntimeException failure = null;
+      for (Object instance : instances) {
+        if (instance instanceof Closeable) {
+          try {
+            ((Closeable) instance).close();
+          } catch (IOException e) {
+            if (failure == null) failure = new RuntimeException("Failed to close " + instance, e);
+          } catch (RuntimeException e) {
+            if (failure == null) failure = e;
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    @Override public Future<Map<String, Long>> warmUp(Executor executor) {
+      if (executor == null) throw new NullPointerException("executor");
+      Map<String, Binding<?>> bindings = linkEverything(null);
+      List<Binding<?>> roots;
+      synchronized (linker) {
+        roots = new ArrayList<Binding<?>>(bindings.values());
+      }
+      return SingletonWarmUp.start(roots, startupSingletonKeys, executor);
+    }
+
+    @Override public void writeStartupProfile(OutputStream out) throws IOException {
+      StartupProfile profile = StartupProfile.recordedBy(plugin);
+      if (profile == null) {
+        throw new IllegalStateException("This graph isn't recording a startup profile.");
+      }
+      List<String> createdSingletonKeys;
+      synchronized (linker) {
+        checkNotClosed();
+        createdSingletonKeys = linker.createdSingletonKeys();
+      }
+      profile.write(out, createdSingletonKeys);
     }
 
     @Override public void injectStatics() {
@@ -252,6 +801,7 @@ public abstract class ObjectGraph {
       // requested bindings. Finally we call linkStaticInjections() again: this
       // time the linker won't return null because everything has been linked.
       synchronized (linker) {
+        checkNotClosed();
         linkStaticInjections();
         linker.linkRequested();
         linkStaticInjections();
@@ -263,25 +813,57 @@ public abstract class ObjectGraph {
     }
 
     @Override public <T> T get(Class<T> type) {
-      String key = Keys.get(type);
-      String injectableTypeKey = type.isInterface() ? key : Keys.getMembersKey(type);
-      ClassLoader classLoader = type.getClassLoader();
-      @SuppressWarnings("unchecked") // The linker matches keys to bindings by their type.
-      Binding<T> binding =
-          (Binding<T>) getInjectableTypeBinding(classLoader, injectableTypeKey, key);
-      return binding.get();
+      return getProvidesBinding(type).get();
     }
 
     @Override public <T> T inject(T instance) {
-      String membersKey = Keys.getMembersKey(instance.getClass());
-      ClassLoader classLoader = instance.getClass().getClassLoader();
-      @SuppressWarnings("unchecked") // The linker matches keys to bindings by their type.
-      Binding<T> binding =
-          (Binding<T>) getInjectableTypeBinding(classLoader, membersKey, membersKey);
+      @SuppressWarnings("unchecked") // The runtime type of 'instance' is a subtype of 'T'.
+      Binding<T> binding = (Binding<T>) getMembersBinding(instance.getClass());
       binding.injectMembers(instance);
       return instance;
     }
 
+    @Override public <T> Provider<T> getProvider(Class<T> type) {
+      return getProvidesBinding(type);
+    }
+
+    @Override public <T> MembersInjector<T> getMembersInjector(Class<T> type) {
+      return getMembersBinding(type);
+    }
+
+    private <T> Binding<T> getProvidesBinding(Class<T> type) {
+      checkNotClosed();
+      checkNotFailed();
+      Binding<?> binding = providesBindings.get(type);
+      if (binding == null) {
+        String key = Keys.get(type);
+        String injectableTypeKey = type.isInterface() ? key : Keys.getMembersKey(type);
+        binding = getInjectableTypeBinding(type.getClassLoader(), injectableTypeKey, key);
+        if (Loader.outlivesDagger(type.getClassLoader())) {
+          providesBindings.put(type, binding);
+        }
+      }
+      @SuppressWarnings("unchecked") // The linker matches keys to bindings by their type.
+      Binding<T> result = (Binding<T>) binding;
+      return result;
+    }
+
+    private <T> Binding<T> getMembersBinding(Class<T> type) {
+      checkNotClosed();
+      checkNotFailed();
+      Binding<?> binding = membersBindings.get(type);
+      if (binding == null) {
+        String membersKey = Keys.getMembersKey(type);
+        binding = getInjectableTypeBinding(type.getClassLoader(), membersKey, membersKey);
+        if (Loader.outlivesDagger(type.getClassLoader())) {
+          membersBindings.put(type, binding);
+        }
+      }
+      @SuppressWarnings("unchecked") // The linker matches keys to bindings by their type.
+      Binding<T> result = (Binding<T>) binding;
+      return result;
+    }
+
     /**
      * @param classLoader the {@code ClassLoader} used to load dependent bindings.
      * @param injectableKey the key used to store the injectable type. This
@@ -293,17 +875,17 @@ public abstract class ObjectGraph {
      */
     private Binding<?> getInjectableTypeBinding(
         ClassLoader classLoader, String injectableKey, String key) {
-      Class<?> moduleClass = null;
-      for (DaggerObjectGraph graph = this; graph != null; graph = graph.base) {
-        moduleClass = graph.injectableTypes.get(injectableKey);
-        if (moduleClass != null) break;
-      }
-      if (moduleClass == null) {
-        throw new IllegalArgumentException("No inject registered for " + injectableKey
-            + ". You must explicitly add it to the 'injects' option in one of your modules.");
+      Map<String, Binding<?>> entryPoints = linkedEntryPoints;
+      if (entryPoints != null) {
+        Binding<?> binding = entryPoints.get(key);
+        if (binding != null) {
+          return binding; // Only linked injectable types are present; no lock required.
+        }
       }
 
+      Class<?> moduleClass = injectableTypeModule(injectableKey);
       synchronized (linker) {
+        checkNotClosed();
         Binding<?> binding = linker.requestBinding(key, moduleClass, classLoader, false, true);
         if (binding == null || !binding.isLinked()) {
           linker.linkRequested();
@@ -312,6 +894,24 @@ public abstract class ObjectGraph {
         return binding;
       }
     }
+
+    /**
+     * Returns the module that registered {@code injectableKey} in this graph or
+     * its base graphs.
+     *
+     * @throws IllegalArgumentException if no module registered it.
+     */
+    private Class<?> injectableTypeModule(String injectableKey) {
+      Class<?> moduleClass = injectableTypes.get(injectableKey);
+      if (moduleClass == null && base != null) {
+        moduleClass = base.flattenedInjectableTypes().get(injectableKey);
+      }
+      if (moduleClass == null) {
+        throw new IllegalArgumentException("No inject registered for " + injectableKey
+            + ". You must explicitly add it to the 'injects' option in one of your modules.");
+      }
+      return moduleClass;
+    }
   }
 
 
@@ -320,26 +920,57 @@ public abstract class ObjectGraph {
    * {@link SetBinding}.
    */
   private static final class StandardBindings extends BindingsGroup {
-    private final List<SetBinding<?>> setBindings;
+    private final Map<String, SetBinding<?>> baseSetBindings;
+    private final Map<String, SetBinding<?>> setBindings =
+        new LinkedHashMap<String, SetBinding<?>>();
 
     public StandardBindings() {
-      setBindings = new ArrayList<SetBinding<?>>();
+      this(Collections.<String, SetBinding<?>>emptyMap());
     }
 
-    public StandardBindings(List<SetBinding<?>> baseSetBindings) {
-      setBindings = new ArrayList<SetBinding<?>>(baseSetBindings.size());
-      for (SetBinding<?> sb : baseSetBindings) {
-        @SuppressWarnings({ "rawtypes", "unchecked" })
-        SetBinding<?> child = new SetBinding(sb);
-        setBindings.add(child);
-        put(child.provideKey, child);
+    /**
+     * @param baseSetBindings the set bindings of the base graph. Each is
+     *     extended by this graph only if its modules contribute to that set, so
+     *     that graphs which don't contribute to sets don't copy them.
+     */
+    public StandardBindings(Map<String, SetBinding<?>> baseSetBindings) {
+      this.baseSetBindings = baseSetBindings;
+    }
+
+    @Override protected Binding<?> put(String key, Binding<?> value) {
+      if (super.get(key) == null && baseSetBindings.containsKey(key)) {
+        throw new IllegalArgumentException(
+            "Duplicate:\n    " + baseSetBindings.get(key) + "\n    " + value);
       }
+      return super.put(key, value);
     }
 
+    /**
+     * Contributes {@code value}, a new and empty set binding. If the base graph
+     * has a set binding for {@code key}, a copy that extends it is contributed
+     * instead.
+     */
     @Override public Binding<?> contributeSetBinding(String key, SetBinding<?> value) {
-      setBindings.add(value);
+      SetBinding<?> baseSetBinding = baseSetBindings.get(key);
+      if (baseSetBinding != null) {
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        SetBinding<?> child = new SetBinding(baseSetBinding);
+        child.setLibrary(child.library() && value.library());
+        value = child;
+      }
+      setBindings.put(key, value);
       return super.put(key, value);
     }
+
+    /** Returns the set bindings visible to graphs that extend this graph. */
+    public Map<String, SetBinding<?>> visibleSetBindings() {
+      if (setBindings.isEmpty()) {
+        return baseSetBindings;
+      }
+      Map<String, SetBinding<?>> result = new HashMap<String, SetBinding<?>>(baseSetBindings);
+      result.putAll(setBindings);
+      return result;
+    }
   }
 
   /**
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dagger.internal.loaders.GeneratedAdapters.INJECT_ADAPTER_INDEXES;
+import static dagger.internal.loaders.GeneratedAdapters.MODULE_ADAPTER_INDEXES;
+
+/**
+ * Creates adapters generated by {@code dagger-compiler} without looking up their classes by name
+ * or instantiating them reflectively. The compiler generates an index for the adapters of each
+ * round of compilation, and lists the indexes in the {@code INJECT_ADAPTER_INDEXES} and {@code
+ * MODULE_ADAPTER_INDEXES} resources.
+ */
+public abstract class AdapterIndex {
+  /**
+   * The indexed adapters visible to each class loader, by adapter class name. Only class loaders
+   * that outlive Dagger's are indexed, so that indexes don't keep class loaders reachable.
+   */
+  private static final ConcurrentHashMap<ClassLoader, Map<String, IndexedAdapter>> INDEXES =
+      new ConcurrentHashMap<ClassLoader, Map<String, IndexedAdapter>>();
+
+  private final String[] adapterNames;
+
+  /**
+   * @param adapterNames the class names of the adapters created by this index, in the order of
+   *     the indices passed to {@link #create}.
+   */
+  protected AdapterIndex(String... adapterNames) {
+    this.adapterNames = adapterNames;
+  }
+
+  /** Returns a new instance of the adapter named by {@code adapterNames[index]}. */
+  protected abstract Object create(int index);
+
+  /**
+   * Returns a new instance of the adapter named {@code adapterName} if it is indexed for {@code
+   * classLoader}, or null if it isn't. A null {@code ClassLoader} is assumed to be the system
+   * classloader.
+   */
+  static Object newIndexedAdapter(ClassLoader classLoader, String adapterName) {
+    classLoader = (classLoader != null) ? classLoader : ClassLoader.getSystemClassLoader();
+    if (!Loader.outlivesDagger(classLoader)) {
+      return null;
+    }
+    Map<String, IndexedAdapter> adapters = INDEXES.get(classLoader);
+    if (adapters == null) {
+      // Racing threads may each read the indexes; they're all equivalent.
+      adapters = loadIndexes(classLoader);
+      INDEXES.put(classLoader, adapters);
+    }
+    IndexedAdapter adapter = adapters.get(adapterName);
+    if (adapter == null) {
+      return null;
+    }
+    try {
+      return adapter.index.create(adapter.position);
+    } catch (LinkageError e) {
+      return null; // A stale index; look the adapter up by name instead.
+    }
+  }
+
+  /**
+   * Returns the adapters of the indexes listed in {@code classLoader}'s resources. Indexes that
+   * can't be read or loaded are skipped; their adapters are then looked up by name.
+   */
+  private static Map<String, IndexedAdapter> loadIndexes(ClassLoader classLoader) {
+    Map<String, IndexedAdapter> result = new HashMap<String, IndexedAdapter>();
+    for (String resource : new String[] {INJECT_ADAPTER_INDEXES, MODULE_ADAPTER_INDEXES}) {
+      Enumeration<URL> urls;
+      try {
+        urls = classLoader.getResources(resource);
+      } catch (IOException e) {
+        continue;
+      }
+      while (urls.hasMoreElements()) {
+        List<String> indexNames;
+        try {
+          indexNames = readLines(urls.nextElement());
+        } catch (IOException e) {
+          continue; // Other resources may still be readable.
+        }
+        for (String indexName : indexNames) {
+          AdapterIndex index = loadIndex(classLoader, indexName);
+          if (index == null) {
+            continue;
+          }
+          for (int i = 0; i < index.adapterNames.length; i++) {
+            if (!result.containsKey(index.adapterNames[i])) {
+              result.put(index.adapterNames[i], new IndexedAdapter(index, i));
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private static AdapterIndex loadIndex(ClassLoader classLoader, String indexName) {
+    try {
+      return (AdapterIndex) classLoader.loadClass(indexName).newInstance();
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (InstantiationException e) {
+      return null;
+    } catch (IllegalAccessException e) {
+      return null;
+    } catch (ClassCastException e) {
+      return null;
+    } catch (LinkageError e) {
+      return null;
+    }
+  }
+
+  private static List<String> readLines(URL url) throws IOException {
+    List<String> result = new ArrayList<String>();
+    InputStream in = url.openStream();
+    try {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+      for (String line; (line = reader.readLine()) != null;) {
+        line = line.trim();
+        if (line.length() != 0 && !line.startsWith("#")) {
+          result.add(line);
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return result;
+  }
+
+  private static final class IndexedAdapter {
+    final AdapterIndex index;
+    final int position;
+
+    IndexedAdapter(AdapterIndex index, int position) {
+      this.index = index;
+      this.position = position;
+    }
+  }
+}
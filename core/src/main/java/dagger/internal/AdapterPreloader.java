@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Loads the adapters of modules, their includes, and their injectable types on an executor, so
+ * that their classes are loaded and initialized by the time a graph needs them. The adapters
+ * created here are discarded; failures are ignored and reported by the graph when it loads the
+ * same adapters.
+ */
+public final class AdapterPreloader {
+  private final Loader loader;
+  private final Executor executor;
+
+  /** The module classes and binding keys whose adapters have been preloaded or are queued. */
+  private final Map<Object, Boolean> started = new ConcurrentHashMap<Object, Boolean>();
+
+  private AdapterPreloader(Loader loader, Executor executor) {
+    this.loader = loader;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts loading the adapters for {@code seedModulesOrClasses} on {@code executor}, and
+   * returns immediately.
+   */
+  public static void start(Loader loader, Object[] seedModulesOrClasses, Executor executor) {
+    AdapterPreloader preloader = new AdapterPreloader(loader, executor);
+    for (Object seed : seedModulesOrClasses) {
+      preloader.preloadModule((seed instanceof Class<?>) ? (Class<?>) seed : seed.getClass());
+    }
+  }
+
+  private void preloadModule(final Class<?> moduleClass) {
+    if (started.put(moduleClass, Boolean.TRUE) != null) {
+      return;
+    }
+    execute(new Runnable() {
+      @Override public void run() {
+        ModuleAdapter<?> adapter = loader.getModuleAdapter(moduleClass);
+        for (Class<?> include : adapter.includes) {
+          preloadModule(include);
+        }
+        for (String key : adapter.injectableTypes) {
+          preloadBinding(key, moduleClass.getClassLoader());
+        }
+      }
+    });
+  }
+
+  private void preloadBinding(final String key, final ClassLoader classLoader) {
+    final String className = Keys.getClassName(key);
+    if (className == null
+        || Keys.isPlatformType(className)
+        || started.put(key, Boolean.TRUE) != null) {
+      return;
+    }
+    execute(new Runnable() {
+      @Override public void run() {
+        loader.getAtInjectBinding(key, className, classLoader, false);
+      }
+    });
+  }
+
+  private void execute(final Runnable preload) {
+    try {
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          try {
+            preload.run();
+          } catch (RuntimeException ignored) {
+            // The graph reports this when it loads the same adapter.
+          } catch (LinkageError ignored) {
+            // The graph reports this when it loads the same adapter.
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The graph will load the remaining adapters itself.
+    }
+  }
+}
@@ -40,15 +40,12 @@ public abstract class Binding<T> implements Provider<T>, MembersInjector<T> {
   /** Set if this binding's {@link #attach} completed without any missing dependencies. */
   private static final int LINKED = 1 << 1;
 
-  /** Set if {@link ProblemDetector} is actively visiting this binding. */
-  private static final int VISITING = 1 << 2;
-
   /** Set if {@link ProblemDetector} has confirmed this binding has no circular dependencies. */
-  private static final int CYCLE_FREE = 1 << 3;
+  private static final int CYCLE_FREE = 1 << 2;
 
-  private static final int DEPENDED_ON = 1 << 4;
+  private static final int DEPENDED_ON = 1 << 3;
 
-  private static final int LIBRARY = 1 << 5;
+  private static final int LIBRARY = 1 << 4;
 
   /** The key used to provide instances of 'T', or null if this binding cannot provide instances. */
   public final String provideKey;
@@ -114,14 +111,6 @@ public abstract class Binding<T> implements Provider<T>, MembersInjector<T> {
     return (bits & SINGLETON) != 0;
   }
 
-  public boolean isVisiting() {
-    return (bits & VISITING) != 0;
-  }
-
-  public void setVisiting(boolean visiting) {
-    this.bits = visiting ? (bits | VISITING) : (bits & ~VISITING);
-  }
-
   public boolean isCycleFree() {
     return (bits & CYCLE_FREE) != 0;
   }
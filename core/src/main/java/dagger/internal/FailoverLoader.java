@@ -36,25 +36,47 @@ public final class FailoverLoader extends Loader {
    * be wasteful in terms of both CPU and memory allocated.
    */
 
+  /**
+   * The adapters of modules loaded by Dagger's class loader or its ancestors. Other modules'
+   * adapters are instantiated for each request so that they don't keep their class loaders
+   * reachable.
+   */
   private final Memoizer<Class<?>, ModuleAdapter<?>> loadedAdapters =
       new Memoizer<Class<?>, ModuleAdapter<?>>() {
         @Override protected ModuleAdapter<?> create(Class<?> type) {
-          ModuleAdapter<?> result =
-              instantiate(type.getName().concat(MODULE_ADAPTER_SUFFIX), type.getClassLoader());
-          if (result == null) {
-            throw new IllegalStateException("Module adapter for " + type + " could not be loaded. "
-                + "Please ensure that code generation was run for this module.");
-          }
-          return result;
+          return loadModuleAdapter(type);
         }
       };
 
+  public FailoverLoader() {
+  }
+
+  /**
+   * @param maxMissingClasses the number of names of classes that failed to load to remember for
+   *     each class loader.
+   */
+  public FailoverLoader(int maxMissingClasses) {
+    super(maxMissingClasses);
+  }
+
   /**
    * Obtains a module adapter for {@code module} from the first responding resolver.
    */
   @SuppressWarnings("unchecked") // cache ensures types match
   @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> type) {
-    return (ModuleAdapter<T>) loadedAdapters.get(type);
+    return (ModuleAdapter<T>) (outlivesDagger(type.getClassLoader())
+        ? loadedAdapters.get(type)
+        : loadModuleAdapter(type));
+  }
+
+  private ModuleAdapter<?> loadModuleAdapter(Class<?> type) {
+    ModuleAdapter<?> result =
+        instantiate(type.getName().concat(MODULE_ADAPTER_SUFFIX), type.getClassLoader());
+    if (result == null) {
+      throw new IllegalStateException("Module adapter for " + type + " could not be loaded. "
+          + "Please ensure that code generation was run for this module.");
+    }
+    return result;
   }
 
   @Override public Binding<?> getAtInjectBinding(
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.internal.Binding.InvalidBindingException;
+
+import static dagger.internal.loaders.GeneratedAdapters.INJECT_ADAPTER_SUFFIX;
+import static dagger.internal.loaders.GeneratedAdapters.MODULE_ADAPTER_SUFFIX;
+import static dagger.internal.loaders.GeneratedAdapters.STATIC_INJECTION_SUFFIX;
+
+/**
+ * Loads generated module adapters, injection bindings, and static injections, and never falls
+ * back to reflection. Each type that has no generated adapter is reported as an error, so that
+ * linking a graph lists every type that would have needed reflection.
+ */
+public final class GeneratedOnlyLoader extends Loader {
+  /**
+   * The adapters of modules loaded by Dagger's class loader or its ancestors. Other modules'
+   * adapters are instantiated for each request so that they don't keep their class loaders
+   * reachable.
+   */
+  private final Memoizer<Class<?>, ModuleAdapter<?>> loadedAdapters =
+      new Memoizer<Class<?>, ModuleAdapter<?>>() {
+        @Override protected ModuleAdapter<?> create(Class<?> type) {
+          return loadModuleAdapter(type);
+        }
+      };
+
+  public GeneratedOnlyLoader() {
+  }
+
+  /**
+   * @param maxMissingClasses the number of names of classes that failed to load to remember for
+   *     each class loader.
+   */
+  public GeneratedOnlyLoader(int maxMissingClasses) {
+    super(maxMissingClasses);
+  }
+
+  @SuppressWarnings("unchecked") // cache ensures types match
+  @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> type) {
+    return (ModuleAdapter<T>) (outlivesDagger(type.getClassLoader())
+        ? loadedAdapters.get(type)
+        : loadModuleAdapter(type));
+  }
+
+  private ModuleAdapter<?> loadModuleAdapter(Class<?> type) {
+    ModuleAdapter<?> result =
+        instantiate(type.getName().concat(MODULE_ADAPTER_SUFFIX), type.getClassLoader());
+    if (result == null) {
+      throw new IllegalStateException("Module adapter for " + type + " could not be loaded. "
+          + "Please ensure that code generation was run for this module.");
+    }
+    return result;
+  }
+
+  /**
+   * Returns the generated adapter for {@code className}, or null if it is an interface.
+   *
+   * @throws InvalidBindingException if there is no generated adapter for the class.
+   */
+  @Override public Binding<?> getAtInjectBinding(
+      String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
+    Binding<?> result = instantiate(className.concat(INJECT_ADAPTER_SUFFIX), classLoader);
+    if (result != null) {
+      return result;
+    }
+    Class<?> type = loadClass(classLoader, className);
+    if (type.equals(Void.class)) {
+      throw new IllegalStateException(
+          String.format("Could not load class %s needed for binding %s", className, key));
+    }
+    if (type.isInterface()) {
+      return null; // Reported by the linker like any other type that can't be bound.
+    }
+    throw new InvalidBindingException(className, "has no generated adapter and would need "
+        + "reflection. Please ensure that code generation was run for this class.");
+  }
+
+  /**
+   * Returns the generated static injection for {@code injectedClass}.
+   *
+   * @throws InvalidBindingException if there is no generated static injection for the class.
+   */
+  @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+    StaticInjection result = instantiate(
+        injectedClass.getName().concat(STATIC_INJECTION_SUFFIX), injectedClass.getClassLoader());
+    if (result != null) {
+      return result;
+    }
+    throw new InvalidBindingException(injectedClass.getName(), "has no generated static "
+        + "injection and would need reflection. Please ensure that code generation was run for "
+        + "this class.");
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static dagger.internal.loaders.GeneratedAdapters.GRAPH_MANIFEST_SUFFIX;
+
+/**
+ * The graph of a complete module as validated by Dagger's annotation processor, which writes it
+ * as a resource next to the module's class. It describes each module adapter in the graph, lists
+ * the keys bound by the modules, and lists each linked binding with its dependencies and, for
+ * types with {@code @Inject} members, the adapter class that was generated for it. A graph whose
+ * module adapters and bound keys match the manifest of one of its modules has already passed the
+ * checks of {@link ProblemDetector}. The linked bindings are covered by the manifest's hash, but
+ * are only read to verify it, so that matching a graph doesn't require linking it.
+ */
+public final class GraphManifest {
+  private static final String HEADER = "# Dagger graph manifest";
+  private static final String MODULE = "module ";
+  private static final String BOUND = "bound ";
+  private static final String BINDING = "binding ";
+  private static final String ADAPTER = "adapter ";
+  private static final String DEPENDENCY = "dependency ";
+  private static final String HASH = "hash ";
+
+  /** The sorted descriptions of the graph's module adapters. */
+  private final List<String> modules;
+  /** The sorted keys bound by the graph's modules. */
+  private final List<String> boundKeys;
+
+  private GraphManifest(List<String> modules, List<String> boundKeys) {
+    this.modules = modules;
+    this.boundKeys = boundKeys;
+  }
+
+  /**
+   * Describes a module adapter with everything it declares about its module.
+   *
+   * @param includes the binary names of the included modules.
+   * @param staticInjections the binary names of the classes with static injections.
+   */
+  public static String describeModule(String moduleName, boolean overrides, boolean complete,
+      boolean library, List<String> injectableTypes, List<String> includes,
+      List<String> staticInjections) {
+    return moduleName + " overrides=" + overrides + " complete=" + complete
+        + " library=" + library + " injects=" + injectableTypes + " includes=" + includes
+        + " staticInjections=" + staticInjections;
+  }
+
+  static String describeModule(ModuleAdapter<?> adapter) {
+    return describeModule(adapter.moduleClass.getName(), adapter.overrides, adapter.complete,
+        adapter.library, Arrays.asList(adapter.injectableTypes), names(adapter.includes),
+        names(adapter.staticInjections));
+  }
+
+  private static List<String> names(Class<?>[] classes) {
+    List<String> result = new ArrayList<String>(classes.length);
+    for (Class<?> c : classes) {
+      result.add(c.getName());
+    }
+    return result;
+  }
+
+  /** Returns the sorted, distinct keys of the bindings that {@code binding} depends on. */
+  static List<String> dependencyKeys(Binding<?> binding) {
+    Set<Binding<?>> dependencies = new LinkedHashSet<Binding<?>>();
+    binding.getDependencies(dependencies, dependencies);
+    Set<String> result = new TreeSet<String>();
+    for (Binding<?> dependency : dependencies) {
+      if (dependency != null) {
+        result.add(dependency.provideKey != null ? dependency.provideKey : dependency.membersKey);
+      }
+    }
+    return new ArrayList<String>(result);
+  }
+
+  /**
+   * Writes a manifest. This doesn't close {@code out}.
+   *
+   * @param moduleDescriptions the result of {@link #describeModule} for each
+   *     module adapter of the graph.
+   * @param boundKeys the keys bound by the graph's modules.
+   * @param bindings the graph's linked bindings by key.
+   * @param adapters the binary names of the adapters generated for the
+   *     bindings of types with {@code @Inject} members, by key.
+   */
+  public static void write(Writer out, Collection<String> moduleDescriptions,
+      Collection<String> boundKeys, Map<String, Binding<?>> bindings,
+      Map<String, String> adapters) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    lines.add(HEADER);
+    for (String description : sorted(moduleDescriptions)) {
+      lines.add(MODULE + description);
+    }
+    for (String key : sorted(new HashSet<String>(boundKeys))) {
+      lines.add(BOUND + key);
+    }
+    for (String key : sorted(bindings.keySet())) {
+      lines.add(BINDING + key);
+      String adapter = adapters.get(key);
+      if (adapter != null) {
+        lines.add(ADAPTER + adapter);
+      }
+      for (String dependency : dependencyKeys(bindings.get(key))) {
+        lines.add(DEPENDENCY + dependency);
+      }
+    }
+    long hash = 0xcbf29ce484222325L;
+    for (String line : lines) {
+      out.write(line);
+      out.write('\n');
+      hash = hash(hash, line);
+    }
+    out.write(HASH + Long.toHexString(hash) + "\n");
+    out.flush();
+  }
+
+  /** Returns {@code hash} updated with the characters of {@code s} (FNV-1a). */
+  private static long hash(long hash, String s) {
+    for (int i = 0; i < s.length(); i++) {
+      hash = (hash ^ s.charAt(i)) * 0x100000001b3L;
+    }
+    return (hash ^ 0xffff) * 0x100000001b3L; // Separates consecutive strings.
+  }
+
+  private static List<String> sorted(Collection<String> strings) {
+    List<String> result = new ArrayList<String>(strings);
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * Returns the manifest written for {@code moduleClass}, or null if there is
+   * none or it is corrupt.
+   */
+  public static GraphManifest read(Class<?> moduleClass) {
+    ClassLoader classLoader = moduleClass.getClassLoader();
+    if (classLoader == null) {
+      return null;
+    }
+    String resource = moduleClass.getName().replace('.', '/').concat(GRAPH_MANIFEST_SUFFIX);
+    InputStream in = classLoader.getResourceAsStream(resource);
+    if (in == null) {
+      return null;
+    }
+    try {
+      try {
+        return read(in);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /** Reads a manifest written by {@link #write}, or returns null if it is corrupt. */
+  static GraphManifest read(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    if (!HEADER.equals(reader.readLine())) {
+      return null;
+    }
+    long hash = hash(0xcbf29ce484222325L, HEADER);
+    List<String> modules = new ArrayList<String>();
+    List<String> boundKeys = new ArrayList<String>();
+    boolean inBinding = false;
+    try {
+      for (String line; (line = reader.readLine()) != null;) {
+        if (line.startsWith(HASH)) {
+          return parseHash(line.substring(HASH.length())) == hash
+              ? new GraphManifest(modules, boundKeys)
+              : null;
+        } else if (line.startsWith(MODULE)) {
+          modules.add(line.substring(MODULE.length()));
+        } else if (line.startsWith(BOUND)) {
+          boundKeys.add(line.substring(BOUND.length()));
+        } else if (line.startsWith(BINDING)) {
+          inBinding = true;
+        } else if (!inBinding || !(line.startsWith(ADAPTER) || line.startsWith(DEPENDENCY))) {
+          return null;
+        }
+        hash = hash(hash, line);
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return null; // Truncated.
+  }
+
+  /**
+   * Parses the unsigned hexadecimal {@code hash}, which {@link Long#parseLong}
+   * rejects when its top bit is set.
+   */
+  private static long parseHash(String hash) {
+    if (hash.length() == 0 || hash.length() > 16) {
+      throw new NumberFormatException(hash);
+    }
+    long result = 0;
+    for (int i = 0; i < hash.length(); i++) {
+      int digit = Character.digit(hash.charAt(i), 16);
+      if (digit == -1) {
+        throw new NumberFormatException(hash);
+      }
+      result = (result << 4) | digit;
+    }
+    return result;
+  }
+
+  /**
+   * True if {@code moduleAdapters} are the module adapters of this manifest's
+   * graph, and their modules bind {@code boundKeys}, which are sorted.
+   */
+  public boolean matches(Collection<ModuleAdapter<?>> moduleAdapters, List<String> boundKeys) {
+    if (!this.boundKeys.equals(boundKeys) || modules.size() != moduleAdapters.size()) {
+      return false;
+    }
+    List<String> descriptions = new ArrayList<String>(moduleAdapters.size());
+    for (ModuleAdapter<?> adapter : moduleAdapters) {
+      descriptions.add(describeModule(adapter));
+    }
+    Collections.sort(descriptions);
+    return descriptions.equals(modules);
+  }
+
+  /**
+   * Returns the manifest that matches {@code moduleAdapters} and {@code
+   * boundKeys}, or null if none does. Only the manifests of modules that no
+   * other module includes are read, since a manifest lists the modules that
+   * its module includes.
+   */
+  public static GraphManifest find(Collection<ModuleAdapter<?>> moduleAdapters,
+      List<String> boundKeys) {
+    Set<Class<?>> included = new HashSet<Class<?>>();
+    for (ModuleAdapter<?> adapter : moduleAdapters) {
+      included.addAll(Arrays.asList(adapter.includes));
+    }
+    for (ModuleAdapter<?> adapter : moduleAdapters) {
+      if (included.contains(adapter.moduleClass)) {
+        continue;
+      }
+      GraphManifest manifest = read(adapter.moduleClass);
+      if (manifest != null && manifest.matches(moduleAdapters, boundKeys)) {
+        return manifest;
+      }
+    }
+    return null;
+  }
+}
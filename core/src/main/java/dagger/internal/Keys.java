@@ -180,9 +180,10 @@ public final class Keys {
   static String getBuiltInBindingsKey(String key) {
     int start = startOfType(key);
     if (substringStartsWith(key, start, PROVIDER_PREFIX)) {
-      return extractKey(key, start, key.substring(0, start), PROVIDER_PREFIX);
+      return extractKey(key, start, PROVIDER_PREFIX);
     } else if (substringStartsWith(key, start, MEMBERS_INJECTOR_PREFIX)) {
-      return extractKey(key, start, "members/", MEMBERS_INJECTOR_PREFIX);
+      return "members/".concat(
+          key.substring(start + MEMBERS_INJECTOR_PREFIX.length(), key.length() - 1));
     } else {
       return null;
     }
@@ -196,7 +197,7 @@ public final class Keys {
   static String getLazyKey(String key) {
     int start = startOfType(key);
     if (substringStartsWith(key, start, LAZY_PREFIX)) {
-      return extractKey(key, start, key.substring(0, start), LAZY_PREFIX);
+      return extractKey(key, start, LAZY_PREFIX);
     } else {
       return null;
     }
@@ -212,20 +213,20 @@ public final class Keys {
 
   /**
    * Returns an unwrapped key (the key for T from a Provider<T> for example),
-   * removing all wrapping key information, but preserving annotations or known
-   * prefixes.
+   * removing all wrapping key information, but preserving annotations.
    *
    * @param key the key from which the delegate key should be extracted.
    * @param start
    *          an index into the key representing the key's "real" start after
    *          any annotations.
-   * @param delegatePrefix
-   *          key prefix elements extracted from the underlying delegate
-   *          (annotations, "members/", etc.)
    * @param prefix the prefix to strip.
    */
-  private static String extractKey(String key, int start, String delegatePrefix, String prefix) {
-    return delegatePrefix + key.substring(start + prefix.length(), key.length() - 1);
+  private static String extractKey(String key, int start, String prefix) {
+    int end = key.length() - 1;
+    return new StringBuilder(end - prefix.length())
+        .append(key, 0, start)
+        .append(key, start + prefix.length(), end)
+        .toString();
   }
 
   /** Returns true if {@code string.substring(offset).startsWith(substring)}. */
@@ -19,16 +19,25 @@ import dagger.internal.Binding.InvalidBindingException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Links bindings to their dependencies.
  */
 public final class Linker {
   static final Object UNINITIALIZED = new Object();
+  static final Object CLOSED = new Object();
 
   /**
    * The base {@code Linker} which will be consulted to satisfy bindings not
@@ -40,8 +49,36 @@ public final class Linker {
   /** Bindings requiring a call to attach(). May contain deferred bindings. */
   private final Queue<Binding<?>> toLink = new ArrayQueue<Binding<?>>();
 
-  /** True unless calls to requestBinding() were unable to satisfy the binding. */
-  private boolean attachSuccess = true;
+  /**
+   * Unlinked bindings that are either in {@link #toLink} or waiting for their
+   * missing dependencies. Each binding is enqueued at most once.
+   */
+  private final Set<Binding<?>> queued = new HashSet<Binding<?>>();
+
+  /** The deferred binding for each key that has been requested but not yet created. */
+  private final Map<String, DeferredBinding> pending = new HashMap<String, DeferredBinding>();
+
+  /**
+   * The number of deferred bindings that each binding in this map is waiting
+   * on. A waiting binding is attached again once that count reaches zero. Only
+   * used while just-in-time bindings are created on {@link #prefetchExecutor}.
+   */
+  private final Map<Binding<?>, Integer> waiting = new HashMap<Binding<?>, Integer>();
+
+  /** The binding whose {@code attach()} is running, or null. */
+  private Binding<?> attaching;
+
+  /** The number of unsatisfied requests made by {@link #attaching}. */
+  private int missingDependencies;
+
+  /** True if {@link #attaching} requested a key that couldn't be bound. */
+  private boolean attachingUnresolved;
+
+  /**
+   * The error reported for each key bound to {@link Binding#UNRESOLVED}, so
+   * that it is reported again when the key is requested again.
+   */
+  private final Map<String, String> unresolvedErrors = new HashMap<String, String>();
 
   /** All errors encountered during injection. */
   private final List<String> errors = new ArrayList<String>();
@@ -61,6 +98,36 @@ public final class Linker {
 
   private final ErrorHandler errorHandler;
 
+  /**
+   * Executes the loader's work for deferred bindings ahead of time, or null to
+   * do that work on the linking thread. Only set during {@link
+   * #linkAll(Executor)}.
+   */
+  private Executor prefetchExecutor;
+
+  /**
+   * Just-in-time bindings being created ahead of time, by key. Those still here
+   * once {@link #linkAll} returns are dropped.
+   */
+  private final Map<String, PrefetchedBinding> prefetched =
+      new HashMap<String, PrefetchedBinding>();
+
+  /**
+   * The linked bindings of this linker and its base linkers, so that child
+   * linkers can find any ancestor binding with a single lookup. Built on
+   * demand once this linker is fully linked, and shared by all child linkers.
+   */
+  private volatile Map<String, Binding<?>> flattenedBindings;
+
+  /**
+   * The flattened bindings of {@link #base}, or null until first needed.
+   * Guarded by this.
+   */
+  private Map<String, Binding<?>> baseBindings;
+
+  /** True once {@link #close} has released this linker's state. */
+  private boolean closed;
+
   public Linker(Linker base, Loader plugin, ErrorHandler errorHandler) {
     if (plugin == null) throw new NullPointerException("plugin");
     if (errorHandler == null) throw new NullPointerException("errorHandler");
@@ -102,15 +169,122 @@ public final class Linker {
       return linkedBindings;
     }
     for (Binding<?> binding : bindings.values()) {
-      if (!binding.isLinked()) {
-        toLink.add(binding);
+      if (binding != Binding.UNRESOLVED && !binding.isLinked()) {
+        enqueue(binding);
       }
     }
     linkRequested(); // This method throws if bindings are not resolvable/linkable.
     linkedBindings = Collections.unmodifiableMap(bindings);
+    cancelPrefetches(); // Those not used yet are never needed.
     return linkedBindings;
   }
 
+  /**
+   * Like {@link #linkAll()}, but uses {@code executor} to load and create
+   * just-in-time bindings concurrently. Bindings are still attached and
+   * installed on the calling thread in the same order as {@link #linkAll()},
+   * and errors are reported identically.
+   *
+   * @throws AssertionError if this method is not called within a synchronized block which
+   *     holds this {@link Linker} as the lock object.
+   */
+  public Map<String, Binding<?>> linkAll(Executor executor) {
+    assertLockHeld();
+    if (executor == null) throw new NullPointerException("executor");
+    prefetchExecutor = executor;
+    try {
+      for (Binding<?> binding : toLink) {
+        if (binding instanceof DeferredBinding) {
+          prefetch((DeferredBinding) binding);
+        }
+      }
+      return linkAll();
+    } finally {
+      prefetchExecutor = null;
+      cancelPrefetches();
+    }
+  }
+
+  private void cancelPrefetches() {
+    for (PrefetchedBinding unused : prefetched.values()) {
+      unused.cancel(false);
+    }
+    prefetched.clear();
+  }
+
+  /**
+   * Releases this linker's bindings, the instances of its singleton bindings,
+   * and its linking state. Afterwards its singleton bindings throw an {@link
+   * IllegalStateException} instead of returning an instance, and no further
+   * bindings may be requested. Base linkers are not affected.
+   *
+   * @return the instances released by this linker's singleton bindings, most
+   *     recently created first.
+   * @throws AssertionError if this method is not called within a synchronized block which
+   *     holds this {@link Linker} as the lock object.
+   */
+  public List<Object> close() {
+    assertLockHeld();
+    Set<Binding<?>> owned = new HashSet<Binding<?>>();
+    for (Binding<?> binding : bindings.values()) {
+      owned.add(binding);
+      if (binding instanceof SetBinding) {
+        ((SetBinding<?>) binding).getContributors(owned);
+      }
+    }
+    Map<Long, Object> instances = new TreeMap<Long, Object>();
+    for (Binding<?> binding : owned) {
+      if (binding instanceof SingletonBinding) {
+        ((SingletonBinding<?>) binding).close(instances);
+      }
+    }
+
+    closed = true;
+    linkedBindings = null;
+    cancelPrefetches();
+    bindings.clear();
+    toLink.clear();
+    queued.clear();
+    pending.clear();
+    waiting.clear();
+    errors.clear();
+    flattenedBindings = null;
+    baseBindings = null;
+
+    List<Object> result = new ArrayList<Object>(instances.values());
+    Collections.reverse(result);
+    return result;
+  }
+
+  /**
+   * Returns the keys of this linker's singleton bindings whose instances have
+   * been created, oldest first.
+   *
+   * @throws AssertionError if this method is not called within a synchronized block which
+   *     holds this {@link Linker} as the lock object.
+   */
+  public List<String> createdSingletonKeys() {
+    assertLockHeld();
+    Set<Binding<?>> owned = new HashSet<Binding<?>>();
+    for (Binding<?> binding : bindings.values()) {
+      owned.add(binding);
+      if (binding instanceof SetBinding) {
+        ((SetBinding<?>) binding).getContributors(owned);
+      }
+    }
+    Map<Long, String> keys = new TreeMap<Long, String>();
+    for (Binding<?> binding : owned) {
+      if (binding instanceof SingletonBinding) {
+        long creationOrder = ((SingletonBinding<?>) binding).creationOrder();
+        if (creationOrder != -1) {
+          keys.put(creationOrder,
+              (binding.provideKey != null) ? binding.provideKey : binding.membersKey);
+        }
+      }
+    }
+    return new ArrayList<String>(keys.values());
+  }
+
   /**
    * Returns the map of all bindings available to this {@link Linker}, if and only if
    * {@link #linkAll()} has successfully returned at least once, otherwise it returns null;
@@ -123,6 +297,15 @@ public final class Linker {
    * Links all requested bindings plus their transitive dependencies. This
    * creates JIT bindings as necessary to fill in the gaps.
    *
+   * <p>Each binding is attached once: the just-in-time bindings that its
+   * {@code attach()} requests are created, unlinked, while it runs, and are
+   * linked later. Bindings are never enqueued twice, so linking is linear in
+   * the number of bindings and dependencies. Only while {@link
+   * #linkAll(Executor)} creates just-in-time bindings concurrently does a
+   * binding whose {@code attach()} requests missing dependencies wait until
+   * a binding has been created (or has failed) for each of them, and is then
+   * attached once more.
+   *
    * @throws AssertionError if this method is not called within a synchronized block which
    *     holds this {@link Linker} as the lock object.
    */
@@ -132,48 +315,54 @@ public final class Linker {
     while ((binding = toLink.poll()) != null) {
       if (binding instanceof DeferredBinding) {
         DeferredBinding deferred = (DeferredBinding) binding;
-        String key = deferred.deferredKey;
-        boolean mustHaveInjections = deferred.mustHaveInjections;
-        if (bindings.containsKey(key)) {
-          continue; // A binding for this key has since been linked.
-        }
+        pending.remove(deferred.deferredKey);
         try {
-          Binding<?> resolvedBinding =
-              createBinding(key, binding.requiredBy, deferred.classLoader, mustHaveInjections);
-          resolvedBinding.setLibrary(binding.library());
-          resolvedBinding.setDependedOn(binding.dependedOn());
-          // Fail if the type of binding we got wasn't capable of what was requested.
-          if (!key.equals(resolvedBinding.provideKey) && !key.equals(resolvedBinding.membersKey)) {
-            throw new IllegalStateException("Unable to create binding for " + key);
+          if (!bindings.containsKey(deferred.deferredKey)) {
+            resolve(deferred);
+          }
+        } finally {
+          // Whether it was created, has failed or was bound meanwhile, the key is
+          // now in the bindings map. Attach the bindings that were waiting on it.
+          for (Binding<?> waiter : deferred.waiters) {
+            Integer remaining = waiting.get(waiter);
+            if (remaining == null) {
+              continue; // Its attach failed; it'll be attached again when requested.
+            } else if (remaining == 1) {
+              waiting.remove(waiter);
+              toLink.add(waiter);
+            } else {
+              waiting.put(waiter, remaining - 1);
+            }
           }
-          // Enqueue the JIT binding so its own dependencies can be linked.
-          Binding<?> scopedBinding = scope(resolvedBinding);
-          toLink.add(scopedBinding);
-          putBinding(scopedBinding);
-        } catch (InvalidBindingException e) {
-          addError(e.type + " " + e.getMessage() + " required by " + binding.requiredBy);
-          bindings.put(key, Binding.UNRESOLVED);
-        } catch (UnsupportedOperationException e) {
-          addError("Unsupported: " + e.getMessage() + " required by " + binding.requiredBy);
-          bindings.put(key, Binding.UNRESOLVED);
-        } catch (IllegalArgumentException e) {
-          addError(e.getMessage() + " required by " + binding.requiredBy);
-          bindings.put(key, Binding.UNRESOLVED);
-        } catch (RuntimeException e) {
-          throw e;
-        } catch (Exception e) {
-          throw new RuntimeException(e);
         }
+      } else if (binding.isLinked()) {
+        queued.remove(binding);
       } else {
         // Attempt to attach the binding to its dependencies. If any dependency
         // is not available, the attach will fail. We'll enqueue creation of
-        // that dependency and retry the attachment later.
-        attachSuccess = true;
-        binding.attach(this);
-        if (attachSuccess) {
+        // that dependency and attach again once it has been created.
+        attaching = binding;
+        missingDependencies = 0;
+        attachingUnresolved = false;
+        boolean attached = false;
+        try {
+          binding.attach(this);
+          attached = true;
+        } finally {
+          attaching = null;
+          if (!attached) {
+            queued.remove(binding); // Let a later request attach it again.
+          }
+        }
+        if (attachingUnresolved) {
+          // Its error has been reported. A later request attaches it again and
+          // reports the error again, rather than returning an unlinked binding.
+          queued.remove(binding);
+        } else if (missingDependencies == 0) {
           binding.setLinked();
+          queued.remove(binding);
         } else {
-          toLink.add(binding);
+          waiting.put(binding, missingDependencies);
         }
       }
     }
@@ -185,6 +374,65 @@ public final class Linker {
     }
   }
 
+  /**
+   * Creates and enqueues the binding for {@code deferred}, or records an error
+   * and marks its key as unresolved.
+   */
+  private void resolve(DeferredBinding deferred) {
+    resolve(deferred.deferredKey, deferred.requiredBy, deferred.classLoader,
+        deferred.mustHaveInjections, deferred.library(), deferred.dependedOn());
+  }
+
+  /**
+   * Creates and enqueues the binding for {@code key}, or records an error and
+   * marks {@code key} as unresolved.
+   */
+  private void resolve(String key, Object requiredBy, ClassLoader classLoader,
+      boolean mustHaveInjections, boolean library, boolean dependedOn) {
+    try {
+      Binding<?> resolvedBinding =
+          createBinding(key, requiredBy, classLoader, mustHaveInjections);
+      resolvedBinding.setLibrary(library);
+      resolvedBinding.setDependedOn(dependedOn);
+      // Fail if the type of binding we got wasn't capable of what was requested.
+      if (!key.equals(resolvedBinding.provideKey) && !key.equals(resolvedBinding.membersKey)) {
+        throw new IllegalStateException("Unable to create binding for " + key);
+      }
+      // Enqueue the JIT binding so its own dependencies can be linked.
+      Binding<?> scopedBinding = scope(resolvedBinding);
+      enqueue(scopedBinding);
+      putBinding(scopedBinding);
+    } catch (InvalidBindingException e) {
+      unresolved(key, e.type + " " + e.getMessage() + " required by " + requiredBy);
+      addError(unresolvedErrors.get(key));
+    } catch (UnsupportedOperationException e) {
+      unresolved(key, "Unsupported: " + e.getMessage() + " required by " + requiredBy);
+      addError(unresolvedErrors.get(key));
+    } catch (IllegalArgumentException e) {
+      unresolved(key, e.getMessage() + " required by " + requiredBy);
+      addError(unresolvedErrors.get(key));
+    } catch (RuntimeException e) {
+      unresolved(key, e.getMessage() + " required by " + requiredBy);
+      throw e;
+    } catch (Error e) {
+      unresolved(key, e + " required by " + requiredBy);
+      throw e;
+    }
+  }
+
+  /** Binds {@code key} to {@link Binding#UNRESOLVED}, remembering {@code error}. */
+  private void unresolved(String key, String error) {
+    bindings.put(key, Binding.UNRESOLVED);
+    unresolvedErrors.put(key, error);
+  }
+
+  /** Adds {@code binding} to the queue of bindings to link, unless it's already there. */
+  private void enqueue(Binding<?> binding) {
+    if (queued.add(binding)) {
+      toLink.add(binding);
+    }
+  }
+
   /**
    * Don't permit bindings to be linked without a lock. Callers should lock
    * before requesting any bindings, link the requested bindings, retrieve
@@ -226,14 +474,136 @@ public final class Linker {
       throw new InvalidBindingException(key,
           "is a @Qualifier-annotated type and must be bound by a @Provides method.");
     }
-    Binding<?> binding =
-        plugin.getAtInjectBinding(key, className, classLoader, mustHaveInjections);
+    Binding<?> binding;
+    PrefetchedBinding prefetch = prefetched.remove(key);
+    if (prefetch != null
+        && prefetch.classLoader == classLoader
+        && prefetch.mustHaveInjections == mustHaveInjections) {
+      binding = prefetch.getBinding();
+    } else {
+      binding = plugin.getAtInjectBinding(key, className, classLoader, mustHaveInjections);
+    }
     if (binding != null) {
+      StartupProfile profile = plugin.profile;
+      if (profile != null) {
+        profile.bindingCreated(key, classLoader, mustHaveInjections);
+      }
       return binding;
     }
     throw new InvalidBindingException(className, "could not be bound with key " + key);
   }
 
+  /**
+   * Starts creating the binding for {@code deferred} on {@link
+   * #prefetchExecutor}, if it will need the loader.
+   */
+  private void prefetch(DeferredBinding deferred) {
+    prefetchBinding(deferred.deferredKey, deferred.classLoader, deferred.mustHaveInjections,
+        prefetchExecutor);
+  }
+
+  /**
+   * Starts creating the just-in-time binding for {@code key} on {@code
+   * executor}, if it will need the loader. When the linker later needs that
+   * binding with the same class loader and {@code mustHaveInjections}, it uses
+   * the prefetched binding or waits for it. Keys that are built in or are
+   * invalid are left to {@link #createBinding}, and nothing is prefetched once
+   * {@link #linkAll} has returned.
+   *
+   * @throws AssertionError if this method is not called within a synchronized block which
+   *     holds this {@link Linker} as the lock object.
+   */
+  public void prefetchBinding(String key, ClassLoader classLoader, boolean mustHaveInjections,
+      Executor executor) {
+    assertLockHeld();
+    if (linkedBindings != null
+        || prefetched.containsKey(key)
+        || Keys.getBuiltInBindingsKey(key) != null
+        || Keys.getLazyKey(key) != null
+        || Keys.isAnnotated(key)) {
+      return;
+    }
+    String className = Keys.getClassName(key);
+    if (className == null) {
+      return;
+    }
+    PrefetchedBinding prefetch =
+        new PrefetchedBinding(plugin, key, className, classLoader, mustHaveInjections);
+    prefetched.put(key, prefetch);
+    try {
+      executor.execute(prefetch);
+    } catch (RejectedExecutionException e) {
+      // The linking thread will run it when the binding is needed.
+    }
+  }
+
+  /**
+   * Returns the linked binding for {@code key} from this linker or one of its
+   * base linkers, or null if no such binding has been linked. Unlike {@link
+   * #requestBinding}, this never enqueues anything to be linked.
+   */
+  public Binding<?> getLinkedBinding(String key) {
+    assertLockHeld();
+    Binding<?> binding = findBinding(key);
+    return (binding != null && binding != Binding.UNRESOLVED && binding.isLinked())
+        ? binding
+        : null;
+  }
+
+  /**
+   * Returns the binding for {@code key} from this linker or the nearest base
+   * linker that had a linked binding for it when this linker first looked, or
+   * null if none did.
+   */
+  private Binding<?> findBinding(String key) {
+    Binding<?> binding = bindings.get(key);
+    if (binding != null || base == null) {
+      return binding;
+    }
+    if (baseBindings == null) {
+      baseBindings = base.flattenedBindings();
+    }
+    return baseBindings.get(key);
+  }
+
+  /**
+   * Returns the linked bindings of this linker and its base linkers. Where
+   * several linkers bind a key, the binding nearest to this linker is used.
+   *
+   * <p>A fully linked linker's bindings don't change, so their flattened map is
+   * built without holding its lock, and kept for its other child linkers.
+   * Racing threads may each build it; they're all equivalent. A linker that
+   * isn't fully linked is locked to copy the bindings linked so far.
+   */
+  private Map<String, Binding<?>> flattenedBindings() {
+    Map<String, Binding<?>> result = flattenedBindings;
+    if (result != null) {
+      return result;
+    }
+    Map<String, Binding<?>> linked = linkedBindings;
+    if (linked == null) {
+      synchronized (this) {
+        return flatten(bindings);
+      }
+    }
+    result = flatten(linked);
+    flattenedBindings = result;
+    return result;
+  }
+
+  private Map<String, Binding<?>> flatten(Map<String, Binding<?>> ownBindings) {
+    Map<String, Binding<?>> result = (base != null)
+        ? new HashMap<String, Binding<?>>(base.flattenedBindings())
+        : new HashMap<String, Binding<?>>();
+    for (Map.Entry<String, Binding<?>> entry : ownBindings.entrySet()) {
+      Binding<?> binding = entry.getValue();
+      if (binding != Binding.UNRESOLVED && binding.isLinked()) {
+        result.put(entry.getKey(), binding);
+      }
+    }
+    return result;
+  }
+
   /** @deprecated Older, generated code still using this should be re-generated. */
   @Deprecated
   public Binding<?> requestBinding(String key, Object requiredBy) {
@@ -272,29 +642,54 @@ public final class Linker {
   public Binding<?> requestBinding(String key, Object requiredBy, ClassLoader classLoader,
       boolean mustHaveInjections, boolean library) {
     assertLockHeld();
+    if (closed) {
+      throw new IllegalStateException("Cannot request " + key + ": the linker is closed.");
+    }
 
-    Binding<?> binding = null;
-    for (Linker linker = this; linker != null; linker = linker.base) {
-      binding = linker.bindings.get(key);
-      if (binding != null) {
-        if (linker != this && !binding.isLinked()) throw new AssertionError();
-        break;
+    Binding<?> binding = findBinding(key);
+    if (binding == null && attaching != null && prefetchExecutor == null) {
+      // Create the binding now so that the binding being attached gets it, and
+      // needn't be attached again once its dependencies exist.
+      resolve(key, requiredBy, classLoader, mustHaveInjections, library, true);
+      binding = bindings.get(key);
+    }
+    if (binding == Binding.UNRESOLVED) {
+      String error = unresolvedErrors.get(key);
+      if (error == null) {
+        error = key + " could not be bound, required by " + requiredBy;
+      }
+      if (!errors.contains(error)) {
+        addError(error);
+      }
+      if (attaching != null) {
+        attachingUnresolved = true;
       }
+      binding.setLibrary(library);
+      binding.setDependedOn(true);
+      return binding;
     }
-
     if (binding == null) {
       // We can't satisfy this binding. Make sure it'll work next time!
-      Binding<?> deferredBinding =
-          new DeferredBinding(key, classLoader, requiredBy, mustHaveInjections);
-      deferredBinding.setLibrary(library);
-      deferredBinding.setDependedOn(true);
-      toLink.add(deferredBinding);
-      attachSuccess = false;
+      DeferredBinding deferredBinding = pending.get(key);
+      if (deferredBinding == null) {
+        deferredBinding = new DeferredBinding(key, classLoader, requiredBy, mustHaveInjections);
+        deferredBinding.setLibrary(library);
+        deferredBinding.setDependedOn(true);
+        pending.put(key, deferredBinding);
+        toLink.add(deferredBinding);
+        if (prefetchExecutor != null) {
+          prefetch(deferredBinding);
+        }
+      }
+      if (attaching != null) {
+        deferredBinding.waiters.add(attaching);
+        missingDependencies++;
+      }
       return null;
     }
 
     if (!binding.isLinked()) {
-      toLink.add(binding); // This binding was never linked; link it now!
+      enqueue(binding); // This binding was never linked; link it now!
     }
 
     binding.setLibrary(library);
@@ -345,8 +740,12 @@ public final class Linker {
    * A Binding that implements singleton behaviour around an existing binding.
    */
   private static class SingletonBinding<T> extends Binding<T> {
+    /** Orders singleton instances by creation, so they're released newest first. */
+    private static final AtomicLong creationSequence = new AtomicLong();
+
     private final Binding<T> binding;
     private volatile Object onlyInstance = UNINITIALIZED;
+    private long creationOrder;
 
     SingletonBinding(Binding<T> binding) {
       super(binding.provideKey, binding.membersKey, true, binding.requiredBy);
@@ -361,16 +760,40 @@ public final class Linker {
       binding.injectMembers(t);
     }
 
-    @SuppressWarnings("unchecked") // onlyInstance is either 'UNINITIALIZED' or a 'T'.
+    @SuppressWarnings("unchecked") // onlyInstance is 'UNINITIALIZED', 'CLOSED' or a 'T'.
     @Override public T get() {
-      if (onlyInstance == UNINITIALIZED) {
+      Object instance = onlyInstance;
+      if (instance == UNINITIALIZED) {
         synchronized (this) {
-          if (onlyInstance == UNINITIALIZED) {
-            onlyInstance = binding.get();
+          instance = onlyInstance;
+          if (instance == UNINITIALIZED) {
+            instance = binding.get();
+            creationOrder = creationSequence.getAndIncrement();
+            onlyInstance = instance;
           }
         }
       }
-      return (T) onlyInstance;
+      if (instance == CLOSED) {
+        throw new IllegalStateException("Cannot get " + this + ": its graph is closed.");
+      }
+      return (T) instance;
+    }
+
+    /** Returns the creation order of this binding's instance, or -1 if it has none. */
+    long creationOrder() {
+      Object instance = onlyInstance; // Read before creationOrder, which is written before it.
+      return (instance != UNINITIALIZED && instance != CLOSED) ? creationOrder : -1;
+    }
+
+    /**
+     * Releases this binding's instance, if it has one, into {@code instances}
+     * by creation order.
+     */
+    synchronized void close(Map<Long, Object> instances) {
+      if (onlyInstance != UNINITIALIZED && onlyInstance != CLOSED) {
+        instances.put(creationOrder, onlyInstance);
+      }
+      onlyInstance = CLOSED;
     }
 
     @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
@@ -385,10 +808,6 @@ public final class Linker {
       return binding.isLinked();
     }
 
-    @Override public boolean isVisiting() {
-      return binding.isVisiting();
-    }
-
     @Override public boolean library() {
       return binding.library();
     }
@@ -401,10 +820,6 @@ public final class Linker {
       binding.setCycleFree(cycleFree);
     }
 
-    @Override public void setVisiting(final boolean visiting) {
-      binding.setVisiting(visiting);
-    }
-
     @Override public void setLibrary(boolean library) {
       binding.setLibrary(true);
     }
@@ -443,11 +858,53 @@ public final class Linker {
     void handleErrors(List<String> errors);
   }
 
+  /**
+   * Creates a binding using the loader. This is run either by an executor, or
+   * by the linking thread when it needs the binding before the executor has
+   * started this task.
+   */
+  private static final class PrefetchedBinding extends FutureTask<Binding<?>> {
+    final ClassLoader classLoader;
+    final boolean mustHaveInjections;
+
+    PrefetchedBinding(final Loader plugin, final String key, final String className,
+        final ClassLoader classLoader, final boolean mustHaveInjections) {
+      super(new Callable<Binding<?>>() {
+        @Override public Binding<?> call() {
+          return plugin.getAtInjectBinding(key, className, classLoader, mustHaveInjections);
+        }
+      });
+      this.classLoader = classLoader;
+      this.mustHaveInjections = mustHaveInjections;
+    }
+
+    /**
+     * Returns the created binding, or throws what the loader threw. If no
+     * other thread has started this task it is run on the calling thread.
+     */
+    Binding<?> getBinding() {
+      run(); // No-op if this task has already started on another thread.
+      try {
+        return get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new RuntimeException(cause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
   private static class DeferredBinding extends Binding<Object> {
     /** Loader originally intended to load this binding, to be used in loading the actual one */
     final ClassLoader classLoader;
     final String deferredKey;
     final boolean mustHaveInjections;
+    /** Bindings to attach once this binding has been resolved, once per missing dependency. */
+    final List<Binding<?>> waiters = new ArrayList<Binding<?>>();
 
     DeferredBinding(String deferredKey, ClassLoader classLoader, Object requiredBy,
         boolean mustHaveInjections) {
@@ -16,7 +16,19 @@
  */
 package dagger.internal;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.AccessibleObject;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -25,20 +37,37 @@ import java.lang.reflect.AccessibleObject;
  * provide all resolution methods
  */
 public abstract class Loader {
-  private final Memoizer<ClassLoader, Memoizer<String, Class<?>>> caches =
-      new Memoizer<ClassLoader, Memoizer<String, Class<?>>>() {
-        @Override protected Memoizer<String, Class<?>> create(final ClassLoader classLoader) {
-          return new Memoizer<String, Class<?>>() {
-            @Override protected Class<?> create(String className) {
-              try {
-                return classLoader.loadClass(className);
-              } catch (ClassNotFoundException e) {
-                return Void.class; // Cache the failure (negative case).
-              }
-            }
-          };
-        }
-      };
+  /**
+   * The classes loaded by each class loader. Class loaders are weakly referenced so that this
+   * loader doesn't keep them reachable, and their caches are dropped once they are collected.
+   */
+  private final Map<ClassLoader, ClassCache> caches = new WeakHashMap<ClassLoader, ClassCache>();
+  private final int maxMissingClasses;
+
+  /**
+   * The most recently used cache, so that the common case of a single class loader finds its
+   * cache without locking {@link #caches}.
+   */
+  private volatile ClassCache lastCache;
+
+  /** Records the classes loaded and bindings created with this loader, or null. */
+  volatile StartupProfile profile;
+
+  protected Loader() {
+    this(Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param maxMissingClasses the number of names of classes that failed to load to remember for
+   *     each class loader. When there are more, the names that failed first are forgotten and
+   *     will be looked up again.
+   */
+  protected Loader(int maxMissingClasses) {
+    if (maxMissingClasses < 0) {
+      throw new IllegalArgumentException("maxMissingClasses < 0: " + maxMissingClasses);
+    }
+    this.maxMissingClasses = maxMissingClasses;
+  }
 
   /**
    * Returns a binding that uses {@code @Inject} annotations, or null if no valid binding can
@@ -61,20 +90,63 @@ public abstract class Loader {
   /**
    * Loads a class from a {@code ClassLoader}-specific cache if it's already there, or
    * loads it from the given {@code ClassLoader} and caching it for future requests.  Failures
-   * to load are also cached using the Void.class type.  A null {@code ClassLoader} is assumed
-   * to be the system classloader.
+   * to load are also cached, up to the limit given to the constructor, using the Void.class
+   * type.  A null {@code ClassLoader} is assumed to be the system classloader.
    */
   protected Class<?> loadClass(ClassLoader classLoader, String name) {
     // A null classloader is the system classloader.
     classLoader = (classLoader != null) ? classLoader : ClassLoader.getSystemClassLoader();
-    return caches.get(classLoader).get(name);
+    ClassCache cache = lastCache;
+    if (cache == null || cache.classLoader.get() != classLoader) {
+      synchronized (caches) {
+        cache = caches.get(classLoader);
+        if (cache == null) {
+          cache = new ClassCache(classLoader, maxMissingClasses);
+          caches.put(classLoader, cache);
+        }
+      }
+      lastCache = cache;
+    }
+    Class<?> result = cache.get(classLoader, name);
+    StartupProfile profile = this.profile;
+    if (profile != null && result != Void.class) {
+      profile.classLoaded(classLoader, name);
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if {@code classLoader} is Dagger's class loader or one of its ancestors, so that
+   * its classes are never unloaded before Dagger's own. Caches may reference such classes strongly
+   * without keeping a class loader reachable that could otherwise be collected.
+   */
+  public static boolean outlivesDagger(ClassLoader classLoader) {
+    if (classLoader == null) {
+      return true; // The bootstrap class loader.
+    }
+    for (ClassLoader c = Loader.class.getClassLoader(); c != null; c = c.getParent()) {
+      if (c == classLoader) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
    * Instantiates a class using its default constructor and the given {@link ClassLoader}. This
    * method does not attempt to {@linkplain AccessibleObject#setAccessible set accessibility}.
+   * Generated adapters that are listed in an {@link AdapterIndex} are created by their index.
    */
   protected <T> T instantiate(String name, ClassLoader classLoader) {
+    @SuppressWarnings("unchecked") // Indexes map adapter names to instances of those adapters.
+    T indexed = (T) AdapterIndex.newIndexedAdapter(classLoader, name);
+    if (indexed != null) {
+      StartupProfile profile = this.profile;
+      if (profile != null) {
+        profile.classLoaded(classLoader, name);
+      }
+      return indexed;
+    }
     try {
       Class<?> generatedClass = loadClass(classLoader, name);
       if (generatedClass == Void.class) {
@@ -90,4 +162,105 @@ public abstract class Loader {
     }
   }
 
-}
\ No newline at end of file
+  /**
+   * The classes loaded by a class loader, and the names of those that failed to load. Lookups
+   * don't lock, and each name is loaded at most once at a time: threads that request a class
+   * while it is being loaded wait for that result. Classes are weakly referenced since they
+   * strongly reference their class loader; they remain reachable for as long as the class loader
+   * is.
+   */
+  private static final class ClassCache {
+    final WeakReference<ClassLoader> classLoader;
+    private final int maxMissingClasses;
+
+    /** Each name's class, or a null reference if the class failed to load. */
+    private final ConcurrentMap<String, Future<WeakReference<Class<?>>>> classes =
+        new ConcurrentHashMap<String, Future<WeakReference<Class<?>>>>();
+
+    /** The names of classes that failed to load, oldest first. */
+    private final Queue<String> missing = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger missingCount = new AtomicInteger();
+
+    ClassCache(ClassLoader classLoader, int maxMissingClasses) {
+      this.classLoader = new WeakReference<ClassLoader>(classLoader);
+      this.maxMissingClasses = maxMissingClasses;
+    }
+
+    Class<?> get(final ClassLoader classLoader, final String name) {
+      while (true) {
+        Future<WeakReference<Class<?>>> future = classes.get(name);
+        boolean loadedHere = false;
+        if (future == null) {
+          FutureTask<WeakReference<Class<?>>> task = new FutureTask<WeakReference<Class<?>>>(
+              new Callable<WeakReference<Class<?>>>() {
+                @Override public WeakReference<Class<?>> call() {
+                  try {
+                    return new WeakReference<Class<?>>(classLoader.loadClass(name));
+                  } catch (ClassNotFoundException e) {
+                    return null; // Cache the failure (negative case).
+                  }
+                }
+              });
+          future = classes.putIfAbsent(name, task);
+          if (future == null) {
+            future = task;
+            task.run();
+            loadedHere = true;
+          }
+        }
+
+        WeakReference<Class<?>> reference = await(name, future);
+        if (reference == null) {
+          if (loadedHere) {
+            recordMissing(name);
+          }
+          return Void.class;
+        }
+        Class<?> result = reference.get();
+        if (result != null) {
+          return result;
+        }
+        classes.remove(name, future); // A class loader that it delegated to was collected.
+      }
+    }
+
+    private WeakReference<Class<?>> await(String name, Future<WeakReference<Class<?>>> future) {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return future.get();
+          } catch (InterruptedException e) {
+            interrupted = true; // Loading can't be cancelled; wait for it and restore the flag.
+          } catch (ExecutionException e) {
+            classes.remove(name, future); // Failures other than a missing class are retried.
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    /** Records that {@code name} failed to load, forgetting the oldest failures past the limit. */
+    private void recordMissing(String name) {
+      missing.add(name);
+      if (missingCount.incrementAndGet() > maxMissingClasses) {
+        String eldest = missing.poll();
+        if (eldest == null) {
+          return;
+        }
+        missingCount.decrementAndGet();
+        Future<WeakReference<Class<?>>> future = classes.get(eldest);
+        if (future != null && future.isDone() && await(eldest, future) == null) {
+          classes.remove(eldest, future);
+        }
+      }
+    }
+  }
+}
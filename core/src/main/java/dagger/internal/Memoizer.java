@@ -17,67 +17,84 @@ package dagger.internal;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * Represents an operation whose results are memoized. Results returned by invocations of
  * {@link #create(Object)} are memoized so that the same object is returned for multiple invocations
  * of {@link #get(Object)} for the same key.
+ *
+ * <p>Memoized results are read without locking. {@link #create(Object)} is called at most once per
+ * key at a time: threads that request a key while it is being created wait for that result. If
+ * {@code create} fails, its callers get the failure and the next request for the key retries.
  */
 abstract class Memoizer<K, V> {
-  private final Map<K, V> map;
-  private final Lock readLock;
-  private final Lock writeLock;
-
-  public Memoizer() {
-    this.map = new LinkedHashMap<K, V>();
-    ReadWriteLock lock = new ReentrantReadWriteLock();
-    this.readLock = lock.readLock();
-    this.writeLock = lock.writeLock();
-  }
+  private final ConcurrentMap<K, Future<V>> map = new ConcurrentHashMap<K, Future<V>>();
 
-  public final V get(K key) {
+  public final V get(final K key) {
     if (key == null) {
       throw new NullPointerException("key == null");
     }
 
-    // check to see if we already have a value
-    readLock.lock();
-    try {
-      V value = map.get(key);
-      if (value != null) {
-        return value;
+    Future<V> future = map.get(key);
+    if (future == null) {
+      FutureTask<V> task = new FutureTask<V>(new Callable<V>() {
+        @Override public V call() {
+          V newValue = create(key);
+          if (newValue == null) {
+            throw new NullPointerException("create returned null");
+          }
+          return newValue;
+        }
+      });
+      future = map.putIfAbsent(key, task);
+      if (future == null) {
+        future = task;
+        task.run();
       }
-    } finally {
-      readLock.unlock();
-    }
-
-    // create a new value.  this may race and we might create more than one instance, but that's ok
-    V newValue = create(key);
-    if (newValue == null) {
-      throw new NullPointerException("create returned null");
     }
 
-    // write the new value and return it
-    writeLock.lock();
+    boolean interrupted = false;
     try {
-      map.put(key, newValue);
-      return newValue;
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true; // Creation can't be cancelled; wait for it and restore the flag.
+        } catch (ExecutionException e) {
+          map.remove(key, future);
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+          if (cause instanceof Error) throw (Error) cause;
+          throw new RuntimeException(cause); // create() doesn't throw checked exceptions.
+        }
+      }
     } finally {
-      writeLock.unlock();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
   }
 
   protected abstract V create(K key);
 
   @Override public final String toString() {
-    readLock.lock();
-    try {
-      return map.toString();
-    } finally {
-      readLock.unlock();
+    Map<K, V> created = new LinkedHashMap<K, V>();
+    for (Map.Entry<K, Future<V>> entry : map.entrySet()) {
+      Future<V> future = entry.getValue();
+      if (future.isDone()) {
+        try {
+          created.put(entry.getKey(), future.get());
+        } catch (Exception ignored) {
+          // Failed creations aren't memoized.
+        }
+      }
     }
+    return created.toString();
   }
-}
\ No newline at end of file
+}
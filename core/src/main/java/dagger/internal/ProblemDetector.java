@@ -18,15 +18,29 @@ package dagger.internal;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Detects problems like cyclic dependencies.
  */
 public final class ProblemDetector {
+  /**
+   * @throws IllegalStateException describing every dependency cycle among the
+   *     bindings reachable from {@code bindings}, if there are any.
+   */
   public void detectCircularDependencies(Collection<Binding<?>> bindings) {
-    detectCircularDependencies(bindings, new ArrayList<Binding<?>>());
+    List<String> cycles = findCycles(bindings);
+    if (!cycles.isEmpty()) {
+      StringBuilder message = new StringBuilder();
+      for (String cycle : cycles) {
+        if (message.length() > 0) message.append('\n');
+        message.append(cycle);
+      }
+      throw new IllegalStateException(message.toString());
+    }
   }
 
   public void detectUnusedBinding(Collection<Binding<?>> bindings) {
@@ -48,37 +62,131 @@ public final class ProblemDetector {
     }
   }
 
-  private static void detectCircularDependencies(Collection<Binding<?>> bindings,
-      List<Binding<?>> path) {
-    for (Binding<?> binding : bindings) {
-      if (binding.isCycleFree()) {
+  /**
+   * Returns a description of a dependency cycle in each strongly connected
+   * component of the bindings reachable from {@code bindings}, using an
+   * iterative version of Tarjan's algorithm. This takes time linear in the
+   * number of reachable bindings and dependencies, and its stack is on the
+   * heap. Bindings that can't reach a cycle are marked cycle free so that later
+   * calls skip them.
+   */
+  public List<String> findCycles(Collection<Binding<?>> bindings) {
+    List<String> cycles = new ArrayList<String>();
+    Map<Binding<?>, Node> nodes = new IdentityHashMap<Binding<?>, Node>();
+    List<Node> components = new ArrayList<Node>(); // Tarjan's stack of unassigned nodes.
+    List<Node> path = new ArrayList<Node>(); // Replaces the call stack of a recursive search.
+    for (Binding<?> root : bindings) {
+      if (root.isCycleFree() || nodes.containsKey(root)) {
         continue;
       }
+      path.add(newNode(root, nodes, components));
+      while (!path.isEmpty()) {
+        Node node = path.get(path.size() - 1);
+        if (node.next < node.dependencies.size()) {
+          Binding<?> dependency = node.dependencies.get(node.next++);
+          if (dependency.isCycleFree()) {
+            continue;
+          }
+          Node target = nodes.get(dependency);
+          if (target == null) {
+            path.add(newNode(dependency, nodes, components));
+          } else if (target.onStack) {
+            node.lowLink = Math.min(node.lowLink, target.index);
+            node.selfLoop |= target == node;
+          } else {
+            node.reachesCycle |= target.reachesCycle;
+          }
+          continue;
+        }
 
-      if (binding.isVisiting()) {
-        int index = path.indexOf(binding);
-        StringBuilder message = new StringBuilder()
-            .append("Dependency cycle:");
-        for (int i = index; i < path.size(); i++) {
-          message.append("\n    ").append(i - index).append(". ")
-              .append(path.get(i).provideKey).append(" bound by ").append(path.get(i));
+        path.remove(path.size() - 1);
+        if (node.lowLink == node.index) {
+          completeComponent(node, components, cycles);
+        }
+        if (!path.isEmpty()) {
+          Node parent = path.get(path.size() - 1);
+          parent.lowLink = Math.min(parent.lowLink, node.lowLink);
+          parent.reachesCycle |= node.reachesCycle;
         }
-        message.append("\n    ").append(0).append(". ").append(binding.provideKey);
-        throw new IllegalStateException(message.toString());
       }
+    }
+    return cycles;
+  }
 
-      binding.setVisiting(true);
-      path.add(binding);
-      try {
-        ArraySet<Binding<?>> dependencies = new ArraySet<Binding<?>>();
-        binding.getDependencies(dependencies, dependencies);
-        detectCircularDependencies(dependencies, path);
-        binding.setCycleFree(true);
-      } finally {
-        path.remove(path.size() - 1);
-        binding.setVisiting(false);
+  private static Node newNode(Binding<?> binding, Map<Binding<?>, Node> nodes,
+      List<Node> components) {
+    Node node = new Node(binding, nodes.size());
+    nodes.put(binding, node);
+    components.add(node);
+    return node;
+  }
+
+  /**
+   * Pops the strongly connected component rooted at {@code root} off {@code
+   * components}, and describes one of its cycles if it has any.
+   */
+  private static void completeComponent(Node root, List<Node> components, List<String> cycles) {
+    int start = components.lastIndexOf(root);
+    List<Node> members = components.subList(start, components.size());
+    boolean cyclic = members.size() > 1 || root.selfLoop;
+    boolean reachesCycle = cyclic;
+    for (Node member : members) {
+      reachesCycle |= member.reachesCycle;
+    }
+    if (cyclic) {
+      cycles.add(describeCycle(root, members));
+    }
+    for (Node member : members) {
+      member.onStack = false;
+      member.reachesCycle = reachesCycle;
+      if (!reachesCycle) {
+        member.binding.setCycleFree(true);
+      }
+    }
+    members.clear();
+  }
+
+  /**
+   * Describes the shortest cycle through {@code root} among {@code members},
+   * found with a breadth-first search.
+   */
+  private static String describeCycle(Node root, List<Node> members) {
+    Map<Binding<?>, Node> component = new IdentityHashMap<Binding<?>, Node>();
+    for (Node member : members) {
+      component.put(member.binding, member);
+    }
+    Map<Node, Node> previous = new IdentityHashMap<Node, Node>();
+    List<Node> queue = new ArrayList<Node>();
+    queue.add(root);
+    Node last = null;
+    for (int i = 0; last == null; i++) {
+      Node node = queue.get(i);
+      for (Binding<?> dependency : node.dependencies) {
+        Node target = component.get(dependency);
+        if (target == root) {
+          last = node;
+          break;
+        } else if (target != null && !previous.containsKey(target)) {
+          previous.put(target, node);
+          queue.add(target);
+        }
       }
     }
+
+    List<Node> cycle = new ArrayList<Node>();
+    for (Node node = last; node != root; node = previous.get(node)) {
+      cycle.add(0, node);
+    }
+    cycle.add(0, root);
+    StringBuilder message = new StringBuilder()
+        .append("Dependency cycle:");
+    for (int i = 0; i < cycle.size(); i++) {
+      Binding<?> binding = cycle.get(i).binding;
+      message.append("\n    ").append(i).append(". ")
+          .append(binding.provideKey).append(" bound by ").append(binding);
+    }
+    message.append("\n    ").append(0).append(". ").append(root.binding.provideKey);
+    return message.toString();
   }
 
   public void detectProblems(Collection<Binding<?>> values) {
@@ -86,8 +194,34 @@ public final class ProblemDetector {
     detectUnusedBinding(values);
   }
 
+  /** A binding visited by {@link #findCycles}. */
+  private static final class Node {
+    final Binding<?> binding;
+    final List<Binding<?>> dependencies = new ArrayList<Binding<?>>();
+    final int index;
+    int lowLink;
+    /** The index in {@link #dependencies} of the next dependency to visit. */
+    int next;
+    boolean onStack = true;
+    boolean selfLoop;
+    boolean reachesCycle;
+
+    Node(Binding<?> binding, int index) {
+      this.binding = binding;
+      this.index = index;
+      this.lowLink = index;
+      ArraySet<Binding<?>> set = new ArraySet<Binding<?>>(dependencies);
+      binding.getDependencies(set, set);
+    }
+  }
+
+  /** Adds to a list, so that dependencies are collected without hashing. */
   static class ArraySet<T> extends AbstractSet<T> {
-    private final ArrayList<T> list = new ArrayList<T>();
+    private final List<T> list;
+
+    ArraySet(List<T> list) {
+      this.list = list;
+    }
 
     @Override public boolean add(T t) {
       list.add(t);
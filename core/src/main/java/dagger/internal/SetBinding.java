@@ -123,6 +123,14 @@ public final class SetBinding<T> extends Binding<Set<T>> {
     }
   }
 
+  /**
+   * Adds the bindings that contribute to this set in {@code result}, excluding
+   * those inherited from its parent set.
+   */
+  void getContributors(Set<Binding<?>> result) {
+    result.addAll(contributors);
+  }
+
   @Override public void injectMembers(Set<T> t) {
     throw new UnsupportedOperationException("Cannot inject members on a contributed Set<T>.");
   }
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates the singletons reachable from a set of linked bindings ahead of use.
+ * Each singleton is created once the singletons it depends on have been
+ * created, so singletons that don't depend on each other are created
+ * concurrently.
+ */
+public final class SingletonWarmUp {
+  private final Executor executor;
+
+  /** The singletons that depend on each singleton. */
+  private final Map<Binding<?>, List<Binding<?>>> dependents =
+      new HashMap<Binding<?>, List<Binding<?>>>();
+
+  /** The number of dependencies that each singleton waits for. */
+  private final Map<Binding<?>, AtomicInteger> waitingOn =
+      new HashMap<Binding<?>, AtomicInteger>();
+
+  /**
+   * Construction time in nanoseconds, by singleton key. Singletons that share
+   * a key, such as contributions to sets, add up.
+   */
+  private final ConcurrentHashMap<String, Long> nanos = new ConcurrentHashMap<String, Long>();
+
+  /** Singletons that won't be created because a dependency failed. */
+  private final Map<Binding<?>, Boolean> skipped = new ConcurrentHashMap<Binding<?>, Boolean>();
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+  private final AtomicInteger remaining;
+  private final FutureTask<Map<String, Long>> result;
+
+  private SingletonWarmUp(Map<Binding<?>, Set<Binding<?>>> dependencies, Executor executor) {
+    this.executor = executor;
+    for (Map.Entry<Binding<?>, Set<Binding<?>>> entry : dependencies.entrySet()) {
+      waitingOn.put(entry.getKey(), new AtomicInteger(entry.getValue().size()));
+      for (Binding<?> dependency : entry.getValue()) {
+        List<Binding<?>> list = dependents.get(dependency);
+        if (list == null) {
+          list = new ArrayList<Binding<?>>();
+          dependents.put(dependency, list);
+        }
+        list.add(entry.getKey());
+      }
+    }
+    this.remaining = new AtomicInteger(dependencies.size());
+    this.result = new FutureTask<Map<String, Long>>(new Callable<Map<String, Long>>() {
+      @Override public Map<String, Long> call() throws Exception {
+        Throwable t = failure.get();
+        if (t instanceof Exception) throw (Exception) t;
+        if (t instanceof Error) throw (Error) t;
+        return Collections.unmodifiableMap(nanos);
+      }
+    });
+  }
+
+  /**
+   * Starts creating the singletons reachable from {@code bindings} on {@code
+   * executor}. Singletons that don't wait for others are started in the order
+   * of their keys in {@code firstKeys}, and then in an unspecified order.
+   *
+   * @return a future that completes once every singleton has been created, with
+   *     the nanoseconds taken to create the singletons of each key. If
+   *     a singleton fails, the singletons that depend on it are skipped and the
+   *     future fails with that exception once the others have been created.
+   */
+  public static Future<Map<String, Long>> start(
+      Collection<Binding<?>> bindings, List<String> firstKeys, Executor executor) {
+    SingletonWarmUp warmUp = new SingletonWarmUp(singletonDependencies(bindings), executor);
+    if (warmUp.remaining.get() == 0) {
+      warmUp.result.run();
+    }
+    // Find all independent singletons before any is created and updates the counts.
+    List<Binding<?>> independent = new ArrayList<Binding<?>>();
+    for (Map.Entry<Binding<?>, AtomicInteger> entry : warmUp.waitingOn.entrySet()) {
+      if (entry.getValue().get() == 0) {
+        independent.add(entry.getKey());
+      }
+    }
+    if (!firstKeys.isEmpty()) {
+      final Map<String, Integer> order = new HashMap<String, Integer>();
+      for (String key : firstKeys) {
+        if (!order.containsKey(key)) {
+          order.put(key, order.size());
+        }
+      }
+      Collections.sort(independent, new Comparator<Binding<?>>() {
+        @Override public int compare(Binding<?> a, Binding<?> b) {
+          Integer aOrder = order.get(key(a));
+          Integer bOrder = order.get(key(b));
+          int aIndex = (aOrder != null) ? aOrder : Integer.MAX_VALUE;
+          int bIndex = (bOrder != null) ? bOrder : Integer.MAX_VALUE;
+          return (aIndex < bIndex) ? -1 : ((aIndex == bIndex) ? 0 : 1);
+        }
+      });
+    }
+    for (Binding<?> singleton : independent) {
+      warmUp.create(singleton);
+    }
+    return warmUp.result;
+  }
+
+  private static String key(Binding<?> binding) {
+    return (binding.provideKey != null) ? binding.provideKey : binding.membersKey;
+  }
+
+  private void create(final Binding<?> singleton) {
+    if (skipped.containsKey(singleton)) {
+      created(singleton, false);
+      return;
+    }
+    try {
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          boolean success = false;
+          try {
+            long start = System.nanoTime();
+            singleton.get();
+            addNanos(key(singleton), System.nanoTime() - start);
+            success = true;
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          } finally {
+            created(singleton, success);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      failure.compareAndSet(null, e);
+      created(singleton, false);
+    }
+  }
+
+  private void addNanos(String key, long elapsed) {
+    Long previous = nanos.putIfAbsent(key, elapsed);
+    while (previous != null && !nanos.replace(key, previous, previous + elapsed)) {
+      previous = nanos.get(key);
+    }
+  }
+
+  private void created(Binding<?> singleton, boolean success) {
+    List<Binding<?>> waiting = dependents.get(singleton);
+    if (waiting != null) {
+      for (Binding<?> dependent : waiting) {
+        if (!success) {
+          skipped.put(dependent, Boolean.TRUE);
+        }
+        if (waitingOn.get(dependent).decrementAndGet() == 0) {
+          create(dependent);
+        }
+      }
+    }
+    if (remaining.decrementAndGet() == 0) {
+      result.run();
+    }
+  }
+
+  /**
+   * Returns the singletons reachable from {@code bindings}, each with the
+   * singletons it uses directly or through bindings that aren't singletons.
+   * Dependencies that would form a cycle are omitted.
+   */
+  private static Map<Binding<?>, Set<Binding<?>>> singletonDependencies(
+      Collection<Binding<?>> bindings) {
+    Map<Binding<?>, List<Binding<?>>> dependencies
+        = new LinkedHashMap<Binding<?>, List<Binding<?>>>();
+    List<Binding<?>> stack = new ArrayList<Binding<?>>(bindings);
+    while (!stack.isEmpty()) {
+      Binding<?> binding = stack.remove(stack.size() - 1);
+      if (binding == null || dependencies.containsKey(binding)) {
+        continue;
+      }
+      List<Binding<?>> direct = directDependencies(binding);
+      dependencies.put(binding, direct);
+      stack.addAll(direct);
+    }
+
+    Map<Binding<?>, Set<Binding<?>>> nearest = nearestSingletons(dependencies);
+    Map<Binding<?>, Set<Binding<?>>> result = new LinkedHashMap<Binding<?>, Set<Binding<?>>>();
+    for (Map.Entry<Binding<?>, List<Binding<?>>> entry : dependencies.entrySet()) {
+      if (entry.getKey().isSingleton()) {
+        Set<Binding<?>> singletons = new LinkedHashSet<Binding<?>>();
+        for (Binding<?> dependency : entry.getValue()) {
+          if (dependency.isSingleton()) {
+            singletons.add(dependency);
+          } else {
+            singletons.addAll(nearest.get(dependency));
+          }
+        }
+        result.put(entry.getKey(), singletons);
+      }
+    }
+
+    // Order the singletons as they'll be created. Those that remain depend on a
+    // cycle; they drop their dependencies on each other so that all are created.
+    Map<Binding<?>, Integer> counts = new HashMap<Binding<?>, Integer>();
+    Map<Binding<?>, List<Binding<?>>> users = new HashMap<Binding<?>, List<Binding<?>>>();
+    List<Binding<?>> ready = new ArrayList<Binding<?>>();
+    for (Map.Entry<Binding<?>, Set<Binding<?>>> entry : result.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().size());
+      if (entry.getValue().isEmpty()) {
+        ready.add(entry.getKey());
+      }
+      for (Binding<?> dependency : entry.getValue()) {
+        List<Binding<?>> list = users.get(dependency);
+        if (list == null) {
+          list = new ArrayList<Binding<?>>();
+          users.put(dependency, list);
+        }
+        list.add(entry.getKey());
+      }
+    }
+    Set<Binding<?>> ordered = new HashSet<Binding<?>>();
+    while (!ready.isEmpty()) {
+      Binding<?> binding = ready.remove(ready.size() - 1);
+      ordered.add(binding);
+      List<Binding<?>> list = users.get(binding);
+      if (list != null) {
+        for (Binding<?> user : list) {
+          int count = counts.get(user) - 1;
+          counts.put(user, count);
+          if (count == 0) {
+            ready.add(user);
+          }
+        }
+      }
+    }
+    for (Map.Entry<Binding<?>, Set<Binding<?>>> entry : result.entrySet()) {
+      if (!ordered.contains(entry.getKey())) {
+        entry.getValue().retainAll(ordered);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the singletons that each binding which isn't a singleton uses
+   * directly or through other bindings that aren't singletons. This is an
+   * iterative Tarjan's algorithm over the bindings that aren't singletons: the
+   * members of a strongly connected component share one set, built from the
+   * sets of the components it depends on, which are always complete first.
+   */
+  private static Map<Binding<?>, Set<Binding<?>>> nearestSingletons(
+      Map<Binding<?>, List<Binding<?>>> dependencies) {
+    Map<Binding<?>, Set<Binding<?>>> result = new HashMap<Binding<?>, Set<Binding<?>>>();
+    Map<Binding<?>, Visit> visits = new HashMap<Binding<?>, Visit>();
+    List<Binding<?>> components = new ArrayList<Binding<?>>();
+    List<Binding<?>> path = new ArrayList<Binding<?>>();
+    for (Binding<?> root : dependencies.keySet()) {
+      if (root.isSingleton() || visits.containsKey(root)) {
+        continue;
+      }
+      visits.put(root, new Visit(visits.size()));
+      components.add(root);
+      path.add(root);
+      while (!path.isEmpty()) {
+        Binding<?> binding = path.get(path.size() - 1);
+        Visit visit = visits.get(binding);
+        List<Binding<?>> direct = dependencies.get(binding);
+        if (visit.next < direct.size()) {
+          Binding<?> dependency = direct.get(visit.next++);
+          if (dependency.isSingleton()) {
+            continue;
+          }
+          Visit target = visits.get(dependency);
+          if (target == null) {
+            visits.put(dependency, new Visit(visits.size()));
+            components.add(dependency);
+            path.add(dependency);
+          } else if (!result.containsKey(dependency)) {
+            // The dependency's component is still being built.
+            visit.lowLink = Math.min(visit.lowLink, target.index);
+          }
+          continue;
+        }
+
+        path.remove(path.size() - 1);
+        if (visit.lowLink == visit.index) {
+          List<Binding<?>> members
+              = components.subList(components.lastIndexOf(binding), components.size());
+          Set<Binding<?>> singletons = new LinkedHashSet<Binding<?>>();
+          for (Binding<?> member : members) {
+            for (Binding<?> dependency : dependencies.get(member)) {
+              if (dependency.isSingleton()) {
+                singletons.add(dependency);
+              } else if (result.containsKey(dependency)) {
+                singletons.addAll(result.get(dependency));
+              }
+            }
+          }
+          if (singletons.isEmpty()) {
+            singletons = Collections.emptySet();
+          }
+          for (Binding<?> member : members) {
+            result.put(member, singletons);
+          }
+          members.clear();
+        }
+        if (!path.isEmpty()) {
+          Visit parent = visits.get(path.get(path.size() - 1));
+          parent.lowLink = Math.min(parent.lowLink, visit.lowLink);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static List<Binding<?>> directDependencies(Binding<?> binding) {
+    Set<Binding<?>> dependencies = new LinkedHashSet<Binding<?>>();
+    binding.getDependencies(dependencies, dependencies);
+    dependencies.remove(null);
+    return new ArrayList<Binding<?>>(dependencies);
+  }
+
+  /** A binding's state in {@link #nearestSingletons}. */
+  private static final class Visit {
+    final int index;
+    int lowLink;
+    int next;
+
+    Visit(int index) {
+      this.index = index;
+      this.lowLink = index;
+    }
+  }
+}
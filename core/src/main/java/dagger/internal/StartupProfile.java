@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The classes loaded and the just-in-time bindings created while a graph
+ * starts, in order, and the singletons it created. A profile recorded during
+ * one run is replayed by a later run to load those classes and create those
+ * bindings on an executor before the graph needs them.
+ *
+ * <p>Profiles are UTF-8 text with one entry per line: {@code class}, a class
+ * loader and a class name; {@code binding} or {@code
+ * binding-without-injections}, a class loader and a key; or {@code singleton}
+ * and a key. Class loaders are numbered by their first use among the root
+ * graph's modules; classes and bindings of other class loaders aren't
+ * recorded. Other lines are ignored.
+ */
+public final class StartupProfile {
+  private static final String HEADER = "# Dagger startup profile";
+  private static final String CLASS = "class ";
+  private static final String BINDING = "binding ";
+  private static final String BINDING_WITHOUT_INJECTIONS = "binding-without-injections ";
+  private static final String SINGLETON = "singleton ";
+
+  /** Entries in the order they were recorded or read. Guarded by this. */
+  private final Set<String> entries = new LinkedHashSet<String>();
+
+  /** The class loaders of the recorded entries, by number. */
+  private volatile List<ClassLoader> classLoaders = Collections.emptyList();
+
+  /**
+   * Records the classes loaded by {@code loader}, and the just-in-time bindings
+   * created with it, into this profile. Only classes and bindings of the
+   * class loaders of {@code modules} are recorded.
+   */
+  public void recordWith(Loader loader, Object[] modules) {
+    classLoaders = classLoaders(modules);
+    loader.profile = this;
+  }
+
+  /** Returns the profile that {@code loader} records into, or null if it isn't recording. */
+  public static StartupProfile recordedBy(Loader loader) {
+    return loader.profile;
+  }
+
+  void classLoaded(ClassLoader classLoader, String name) {
+    record(CLASS, classLoader, name);
+  }
+
+  void bindingCreated(String key, ClassLoader classLoader, boolean mustHaveInjections) {
+    record(mustHaveInjections ? BINDING : BINDING_WITHOUT_INJECTIONS, classLoader, key);
+  }
+
+  private void record(String type, ClassLoader classLoader, String value) {
+    int index = classLoaders.indexOf(classLoader);
+    if (index == -1) {
+      return; // Another run can't tell which class loader this was.
+    }
+    String entry = type + index + ' ' + value;
+    synchronized (this) {
+      entries.add(entry);
+    }
+  }
+
+  private synchronized List<String> entries() {
+    return new ArrayList<String>(entries);
+  }
+
+  /**
+   * Writes this profile's entries, followed by {@code createdSingletonKeys}, to
+   * {@code out}.
+   */
+  public void write(OutputStream out, List<String> createdSingletonKeys) throws IOException {
+    Writer writer = new OutputStreamWriter(out, "UTF-8");
+    writer.write(HEADER);
+    writer.write('\n');
+    for (String entry : entries()) {
+      writer.write(entry);
+      writer.write('\n');
+    }
+    for (String key : createdSingletonKeys) {
+      writer.write(SINGLETON);
+      writer.write(key);
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+
+  /** Reads a profile written by {@link #write}. This doesn't close {@code in}. */
+  public static StartupProfile read(InputStream in) throws IOException {
+    StartupProfile result = new StartupProfile();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    for (String line; (line = reader.readLine()) != null;) {
+      if (line.startsWith(CLASS)
+          || line.startsWith(BINDING)
+          || line.startsWith(BINDING_WITHOUT_INJECTIONS)
+          || line.startsWith(SINGLETON)) {
+        result.entries.add(line);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the keys of the singletons that were created when this profile was
+   * recorded, oldest first.
+   */
+  public List<String> singletonKeys() {
+    List<String> result = new ArrayList<String>();
+    for (String entry : entries()) {
+      if (entry.startsWith(SINGLETON)) {
+        result.add(entry.substring(SINGLETON.length()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Starts loading this profile's classes with {@code loader} on {@code
+   * executor}, in the order they were recorded. Each class is loaded by the
+   * class loader of {@code modules} that loaded it when it was recorded.
+   * Classes that can't be loaded are skipped.
+   */
+  public void preloadClasses(final Loader loader, Object[] modules, Executor executor) {
+    List<ClassLoader> classLoaders = classLoaders(modules);
+    final List<ClassLoader> loaders = new ArrayList<ClassLoader>();
+    final List<String> names = new ArrayList<String>();
+    for (String entry : entries()) {
+      if (entry.startsWith(CLASS)) {
+        int index = classLoaderIndex(entry, CLASS.length(), classLoaders);
+        if (index != -1) {
+          loaders.add(classLoaders.get(index));
+          names.add(entry.substring(entry.indexOf(' ', CLASS.length()) + 1));
+        }
+      }
+    }
+    if (names.isEmpty()) {
+      return;
+    }
+    try {
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          for (int i = 0; i < names.size(); i++) {
+            try {
+              loader.loadClass(loaders.get(i), names.get(i));
+            } catch (LinkageError ignored) {
+              // The graph reports this if it loads the same class.
+            }
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The graph loads the classes itself.
+    }
+  }
+
+  /**
+   * Starts creating this profile's just-in-time bindings for {@code linker} on
+   * {@code executor}, each with the class loader of {@code modules} that it was
+   * recorded with. The linker uses them when it links the same keys, and
+   * reports failures to create them as it would have without this profile.
+   */
+  public void prefetchBindings(Linker linker, Object[] modules, Executor executor) {
+    List<ClassLoader> classLoaders = classLoaders(modules);
+    List<String> entries = entries();
+    synchronized (linker) {
+      for (String entry : entries) {
+        boolean mustHaveInjections = entry.startsWith(BINDING);
+        if (!mustHaveInjections && !entry.startsWith(BINDING_WITHOUT_INJECTIONS)) {
+          continue;
+        }
+        int start = (mustHaveInjections ? BINDING : BINDING_WITHOUT_INJECTIONS).length();
+        int index = classLoaderIndex(entry, start, classLoaders);
+        if (index != -1) {
+          String key = entry.substring(entry.indexOf(' ', start) + 1);
+          linker.prefetchBinding(key, classLoaders.get(index), mustHaveInjections, executor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of the class loader of {@code entry}, which starts at
+   * {@code start}, or -1 if it isn't a number of {@code classLoaders}.
+   */
+  private static int classLoaderIndex(String entry, int start, List<ClassLoader> classLoaders) {
+    int end = entry.indexOf(' ', start);
+    if (end == -1) {
+      return -1;
+    }
+    try {
+      int index = Integer.parseInt(entry.substring(start, end));
+      return (index >= 0 && index < classLoaders.size()) ? index : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** Returns the distinct class loaders of {@code modules}, in order. */
+  private static List<ClassLoader> classLoaders(Object[] modules) {
+    List<ClassLoader> result = new ArrayList<ClassLoader>();
+    for (Object module : modules) {
+      Class<?> moduleClass = (module instanceof Class<?>) ? (Class<?>) module : module.getClass();
+      ClassLoader classLoader = moduleClass.getClassLoader();
+      if (!result.contains(classLoader)) {
+        result.add(classLoader);
+      }
+    }
+    return result;
+  }
+}
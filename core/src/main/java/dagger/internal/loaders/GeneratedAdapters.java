@@ -25,6 +25,14 @@ public final class GeneratedAdapters {
   public static final String INJECT_ADAPTER_SUFFIX = SEPARATOR + "InjectAdapter";
   public static final String MODULE_ADAPTER_SUFFIX = SEPARATOR + "ModuleAdapter";
   public static final String STATIC_INJECTION_SUFFIX = SEPARATOR + "StaticInjection";
+  public static final String ADAPTER_INDEX_SUFFIX = SEPARATOR + "AdapterIndex";
+  /** The suffix of the graph manifest resource written next to a complete module's class. */
+  public static final String GRAPH_MANIFEST_SUFFIX = SEPARATOR + "GraphManifest";
+
+  /** Resources that list the generated adapter indexes of inject adapters, one per line. */
+  public static final String INJECT_ADAPTER_INDEXES = "META-INF/dagger/inject-adapter-indexes";
+  /** Resources that list the generated adapter indexes of module adapters, one per line. */
+  public static final String MODULE_ADAPTER_INDEXES = "META-INF/dagger/module-adapter-indexes";
 
   private GeneratedAdapters() { }
 }
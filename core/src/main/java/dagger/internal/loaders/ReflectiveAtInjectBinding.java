@@ -18,7 +18,9 @@ package dagger.internal.loaders;
 import dagger.internal.Binding;
 import dagger.internal.Keys;
 import dagger.internal.Linker;
+import dagger.internal.Loader;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -27,7 +29,9 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -36,6 +40,19 @@ import javax.inject.Singleton;
  * using reflection.
  */
 public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
+  /** The arguments of no-argument constructors, shared since they can't be modified. */
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  /**
+   * The injections found in each class, shared by the bindings of all graphs.
+   * Values are held strongly for classes whose class loader outlives Dagger's,
+   * and weakly for others so that their class loaders can be collected.
+   * Guarded by itself.
+   */
+  private static final Map<Class<?>, Object> CLASS_INJECTIONS = new WeakHashMap<Class<?>, Object>();
+
+  /** Keeps the weakly cached injections of this binding's class while it's in use. */
+  private final ClassInjections<T> injections;
   private final Field[] fields;
   private final ClassLoader loader;
   private final Constructor<T> constructor;
@@ -45,23 +62,14 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
   private final Binding<?>[] parameterBindings;
   private Binding<? super T> supertypeBinding;
 
-  /**
-   * @param keys keys for the fields, constructor parameters and supertype in
-   *     that order. These are precomputed to minimize reflection when {@code
-   *     attach} is called multiple times.
-   * @param constructor the injectable constructor, or null if this binding
-   *     supports members injection only.
-   * @param supertype the injectable supertype, or null if the supertype is a
-   */
-  private ReflectiveAtInjectBinding(String provideKey, String membersKey, boolean singleton,
-      Class<?> type, Field[] fields, Constructor<T> constructor, int parameterCount,
-      Class<?> supertype, String[] keys) {
-    super(provideKey, membersKey, singleton, type);
-    this.constructor = constructor;
-    this.fields = fields;
-    this.supertype = supertype;
-    this.keys = keys;
-    this.parameterBindings = new Binding<?>[parameterCount];
+  private ReflectiveAtInjectBinding(Class<T> type, ClassInjections<T> injections) {
+    super(injections.provideKey, injections.membersKey, injections.singleton, type);
+    this.injections = injections;
+    this.constructor = injections.constructor;
+    this.fields = injections.fields;
+    this.supertype = injections.supertype;
+    this.keys = injections.keys;
+    this.parameterBindings = new Binding<?>[injections.parameterCount];
     this.fieldBindings = new Binding<?>[fields.length];
     this.loader = type.getClassLoader();
   }
@@ -93,9 +101,12 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
     if (constructor == null) {
       throw new UnsupportedOperationException();
     }
-    Object[] args = new Object[parameterBindings.length];
-    for (int i = 0; i < parameterBindings.length; i++) {
-      args[i] = parameterBindings[i].get();
+    Object[] args = NO_ARGUMENTS;
+    if (parameterBindings.length != 0) {
+      args = new Object[parameterBindings.length];
+      for (int i = 0; i < parameterBindings.length; i++) {
+        args[i] = parameterBindings[i].get();
+      }
     }
     T result;
     try {
@@ -142,6 +153,45 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
   }
 
   public static <T> Binding<T> create(Class<T> type, boolean mustHaveInjections) {
+    ClassInjections<T> injections = getClassInjections(type);
+    if (injections.constructor == null) {
+      if (injections.fields.length == 0 && mustHaveInjections) {
+        throw new InvalidBindingException(type.getName(),
+            "has no injectable members. Do you want to add an injectable constructor?");
+      }
+      if (injections.singleton) {
+        throw new IllegalArgumentException(
+            "No injectable constructor on @Singleton " + type.getName());
+      }
+    }
+    return new ReflectiveAtInjectBinding<T>(type, injections);
+  }
+
+  /** Returns the injections of {@code type}, finding them if they aren't cached. */
+  @SuppressWarnings("unchecked") // Each class is mapped to its own injections.
+  static <T> ClassInjections<T> getClassInjections(Class<T> type) {
+    Object cached;
+    synchronized (CLASS_INJECTIONS) {
+      cached = CLASS_INJECTIONS.get(type);
+    }
+    if (cached instanceof WeakReference) {
+      cached = ((WeakReference<?>) cached).get();
+    }
+    if (cached != null) {
+      return (ClassInjections<T>) cached;
+    }
+
+    ClassInjections<T> injections = findClassInjections(type);
+    Object value = Loader.outlivesDagger(type.getClassLoader())
+        ? injections
+        : new WeakReference<ClassInjections<T>>(injections);
+    synchronized (CLASS_INJECTIONS) {
+      CLASS_INJECTIONS.put(type, value);
+    }
+    return injections;
+  }
+
+  private static <T> ClassInjections<T> findClassInjections(Class<T> type) {
     boolean singleton = type.isAnnotationPresent(Singleton.class);
     List<String> keys = new ArrayList<String>();
 
@@ -174,15 +224,10 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
       }
       injectedConstructor = constructor;
     }
-    if (injectedConstructor == null) {
-      if (!injectedFields.isEmpty()) {
-        try {
-          injectedConstructor = type.getDeclaredConstructor();
-        } catch (NoSuchMethodException ignored) {
-        }
-      } else if (mustHaveInjections) {
-        throw new InvalidBindingException(type.getName(),
-            "has no injectable members. Do you want to add an injectable constructor?");
+    if (injectedConstructor == null && !injectedFields.isEmpty()) {
+      try {
+        injectedConstructor = type.getDeclaredConstructor();
+      } catch (NoSuchMethodException ignored) {
       }
     }
 
@@ -206,10 +251,6 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
     } else {
       provideKey = null;
       parameterCount = 0;
-      if (singleton) {
-        throw new IllegalArgumentException(
-            "No injectable constructor on @Singleton " + type.getName());
-      }
     }
 
     Class<? super T> supertype = type.getSuperclass();
@@ -222,7 +263,7 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
     }
 
     String membersKey = Keys.getMembersKey(type);
-    return new ReflectiveAtInjectBinding<T>(provideKey, membersKey, singleton, type,
+    return new ClassInjections<T>(provideKey, membersKey, singleton,
         injectedFields.toArray(new Field[injectedFields.size()]), injectedConstructor,
         parameterCount, supertype, keys.toArray(new String[keys.size()]));
   }
@@ -231,4 +272,37 @@ public final class ReflectiveAtInjectBinding<T> extends Binding<T> {
   private static <T> Constructor<T>[] getConstructorsForType(Class<T> type) {
     return (Constructor<T>[]) type.getDeclaredConstructors();
   }
+
+  /** The reflected injections of a class, found once and shared by its bindings. */
+  static final class ClassInjections<T> {
+    final String provideKey;
+    final String membersKey;
+    final boolean singleton;
+    final Field[] fields;
+    final Constructor<T> constructor;
+    final int parameterCount;
+    final Class<?> supertype;
+    final String[] keys;
+
+    /**
+     * @param keys keys for the fields, constructor parameters and supertype in
+     *     that order. These are precomputed to minimize reflection when {@code
+     *     attach} is called multiple times.
+     * @param constructor the injectable constructor, or null if this binding
+     *     supports members injection only.
+     * @param supertype the injectable supertype, or null if the supertype is a
+     *     platform type.
+     */
+    ClassInjections(String provideKey, String membersKey, boolean singleton, Field[] fields,
+        Constructor<T> constructor, int parameterCount, Class<?> supertype, String[] keys) {
+      this.provideKey = provideKey;
+      this.membersKey = membersKey;
+      this.singleton = singleton;
+      this.fields = fields;
+      this.constructor = constructor;
+      this.parameterCount = parameterCount;
+      this.supertype = supertype;
+      this.keys = keys;
+    }
+  }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import dagger.internal.TestingLoader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.Provides.Type.SET;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class CloseableGraphTest {
+  private final List<String> closed = new ArrayList<String>();
+
+  class Resource implements Closeable {
+    final String name;
+
+    Resource(String name) {
+      this.name = name;
+    }
+
+    @Override public void close() throws IOException {
+      closed.add(name);
+    }
+  }
+
+  @Singleton
+  static class Session {
+    @Inject Session() {}
+  }
+
+  static class Request {
+    @Inject Session session;
+    @Inject Set<Resource> resources;
+  }
+
+  @Module(injects = Session.class, library = true)
+  class AppModule {
+    @Provides(type = SET) @Singleton Resource provideAppResource() {
+      return new Resource("app");
+    }
+  }
+
+  @Module(addsTo = AppModule.class, injects = Request.class)
+  class RequestModule {
+    @Provides @Singleton Resource provideFirst() {
+      return new Resource("first");
+    }
+
+    @Provides(type = SET) @Singleton Resource provideSecond(Resource first) {
+      return new Resource("second");
+    }
+  }
+
+  @Test public void closeClosesSingletonsNewestFirst() {
+    ObjectGraph app = ObjectGraph.createWith(new TestingLoader(), new AppModule());
+    ObjectGraph request = app.plus(new RequestModule());
+    assertThat(request.get(Request.class).resources).hasSize(2);
+
+    request.close();
+    assertThat(closed).containsExactly("second", "first").inOrder();
+    app.close();
+    assertThat(closed).containsExactly("second", "first", "app").inOrder();
+  }
+
+  @Test public void closeDoesNotAffectBaseGraph() {
+    ObjectGraph app = ObjectGraph.createWith(new TestingLoader(), new AppModule());
+    Session session = app.get(Session.class);
+    ObjectGraph request = app.plus(new RequestModule());
+    assertThat(request.get(Request.class).session).isSameAs(session);
+
+    request.close();
+    request.close(); // No effect.
+    assertThat(app.get(Session.class)).isSameAs(session);
+    assertThat(app.plus(new RequestModule()).get(Request.class).session).isSameAs(session);
+  }
+
+  @Test public void closedGraphCannotBeUsed() {
+    ObjectGraph app = ObjectGraph.createWith(new TestingLoader(), new AppModule());
+    Provider<Session> provider = app.getProvider(Session.class);
+    app.close();
+
+    try {
+      app.get(Session.class);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      app.inject(new Session());
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      app.plus(new RequestModule());
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      provider.get();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test public void closeReleasesSingletons() throws InterruptedException {
+    ObjectGraph app = ObjectGraph.createWith(new TestingLoader(), new AppModule());
+    ObjectGraph request = app.plus(new RequestModule());
+    WeakReference<Session> session = new WeakReference<Session>(request.get(Session.class));
+    request.get(Request.class);
+
+    app.close();
+    request.close();
+    for (int i = 0; i < 10 && session.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(session.get()).isNull();
+    assertThat(request).isNotNull(); // The graph itself is still reachable.
+  }
+
+  @Test public void closeReportsFirstFailure() {
+    @Module(injects = Session.class)
+    class FailingModule {
+      @Provides(type = SET) @Singleton Resource provideA() {
+        return new Resource("a");
+      }
+
+      @Provides(type = SET) @Singleton Resource provideB() {
+        return new Resource("b") {
+          @Override public void close() throws IOException {
+            throw new IOException("b");
+          }
+        };
+      }
+
+      @Provides Session provideSession(Set<Resource> resources) {
+        return new Session();
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new FailingModule());
+    graph.get(Session.class);
+    try {
+      graph.close();
+      fail();
+    } catch (RuntimeException expected) {
+      assertThat(expected.getCause()).isInstanceOf(IOException.class);
+    }
+    assertThat(closed).containsExactly("a"); // Older singletons are still closed.
+  }
+}
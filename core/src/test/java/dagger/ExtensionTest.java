@@ -103,6 +103,24 @@ public final class ExtensionTest {
     assertThat(request1.get(C.class).a).isSameAs(request2.get(C.class).a);
   }
 
+  @Module(addsTo = ExtensionModule.class) static class EmptyModule { }
+
+  @Test public void deeplyNestedGraphs() {
+    ObjectGraph app = ObjectGraph.createWith(new TestingLoader(), new RootModule());
+    ObjectGraph session = app.plus(new ExtensionModule());
+    ObjectGraph graph = session;
+    for (int i = 0; i < 5; i++) {
+      graph = graph.plus(new EmptyModule());
+    }
+
+    // Lookups at any depth find the bindings and injectable types of every ancestor.
+    assertThat(graph.get(A.class)).isSameAs(app.get(A.class));
+    assertThat(graph.get(C.class)).isSameAs(session.get(C.class));
+    assertThat(graph.get(D.class).c).isSameAs(session.get(C.class));
+    assertThat(graph.plus(new EmptyModule()).get(B.class).a).isSameAs(app.get(A.class));
+    assertFailInjectNotRegistered(app, D.class);
+  }
+
   private void assertFailInjectNotRegistered(ObjectGraph graph, Class<?> clazz) {
     try {
       assertThat(graph.get(clazz)).isNull();
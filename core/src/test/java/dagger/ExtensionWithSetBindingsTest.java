@@ -17,6 +17,7 @@
 package dagger;
 
 import dagger.internal.TestingLoader;
+import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
@@ -82,6 +83,54 @@ public final class ExtensionWithSetBindingsTest {
     assertThat(main2.ints).containsExactly(0, 1, 4, 5);
   }
 
+  static class Ints {
+    @Inject Set<Integer> ints;
+  }
+
+  static class MoreInts {
+    @Inject Set<Integer> ints;
+  }
+
+  @Module(library = true)
+  static class ConstantsModule {
+    @Provides(type=SET) Integer provideOne() { return 1; }
+  }
+
+  @Module(addsTo = ConstantsModule.class, injects = Ints.class)
+  static class NoContributionsModule {
+  }
+
+  @Module(addsTo = NoContributionsModule.class, injects = MoreInts.class)
+  static class MoreConstantsModule {
+    @Provides(type=SET) Integer provideTwo() { return 2; }
+  }
+
+  @Test public void extensionWithoutSetContributions() {
+    ObjectGraph root = ObjectGraph.createWith(new TestingLoader(), new ConstantsModule());
+    ObjectGraph extension = root.plus(new NoContributionsModule());
+    assertThat(extension.get(Ints.class).ints).containsExactly(1);
+
+    // Sets of the root graph are extended by graphs further down that contribute to them.
+    ObjectGraph nested = extension.plus(new MoreConstantsModule());
+    assertThat(nested.get(MoreInts.class).ints).containsExactly(1, 2);
+    assertThat(extension.get(Ints.class).ints).containsExactly(1);
+  }
+
+  @Module(addsTo = RootModule.class, library = true)
+  static class SetOverwritingModule {
+    @Provides Set<Integer> provideInts() { return Collections.emptySet(); }
+  }
+
+  @Test public void extensionCannotReplaceParentSetBinding() {
+    ObjectGraph root = ObjectGraph.createWith(new TestingLoader(), new RootModule());
+    try {
+      root.plus(new SetOverwritingModule());
+      fail("Should throw exception.");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("SetOverwritingModule: Duplicate"));
+    }
+  }
+
   @Module(includes = ExtensionModule.class, overrides = true)
   static class TestModule {
     @Provides(type=SET) @Singleton Integer provide9999() { return 9999; }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import dagger.internal.Binding;
+import dagger.internal.GraphManifest;
+import dagger.internal.Loader;
+import dagger.internal.ModuleAdapter;
+import dagger.internal.StaticInjection;
+import dagger.internal.TestingLoader;
+import dagger.internal.loaders.ReflectiveAtInjectBinding;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Inject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class GraphManifestTest {
+  private static final String ENTRY_KEY = Entry.class.getName();
+  private static final String ENTRY_MEMBERS_KEY = "members/" + Entry.class.getName();
+
+  static class Entry {
+    @Inject Entry() { }
+  }
+
+  /** Runtime validation reports the unused binding. */
+  @Module(injects = Entry.class)
+  static class UnusedBindingModule {
+    @Provides String provideUnused() {
+      return "unused";
+    }
+  }
+
+  @Test public void validateWithoutManifestDetectsProblems() throws Exception {
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), module(null));
+    try {
+      graph.validate();
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).contains("unused");
+    }
+  }
+
+  @Test public void validateTrustsMatchingManifest() throws Exception {
+    String manifest = manifest(Arrays.asList("java.lang.String"),
+        ReflectiveAtInjectBinding.class.getName());
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), module(manifest));
+    graph.validate();
+    graph.validate();
+  }
+
+  @Test public void validateIgnoresManifestForOtherBoundKeys() throws Exception {
+    String manifest = manifest(Arrays.asList("java.lang.Integer"),
+        ReflectiveAtInjectBinding.class.getName());
+
+    assertValidationFails(ObjectGraph.createWith(new TestingLoader(), module(manifest)));
+  }
+
+  @Test public void validateIgnoresManifestForOtherModules() throws Exception {
+    @Module(library = true)
+    class OtherModule {
+    }
+
+    String manifest = manifest(Arrays.asList("java.lang.String"),
+        ReflectiveAtInjectBinding.class.getName());
+
+    assertValidationFails(ObjectGraph.createWith(new TestingLoader(), module(manifest),
+        new OtherModule()));
+  }
+
+  @Test public void validateDoesntLinkGraphsThatMatchTheirManifest() throws Exception {
+    String manifest = manifest(Arrays.asList("java.lang.String"),
+        ReflectiveAtInjectBinding.class.getName());
+    final List<String> requested = new ArrayList<String>();
+    Loader loader = new Loader() {
+      final Loader delegate = new TestingLoader();
+
+      @Override public Binding<?> getAtInjectBinding(String key, String className,
+          ClassLoader classLoader, boolean mustHaveInjections) {
+        requested.add(key);
+        return delegate.getAtInjectBinding(key, className, classLoader, mustHaveInjections);
+      }
+
+      @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+        return delegate.getModuleAdapter(moduleClass);
+      }
+
+      @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+        return delegate.getStaticInjection(injectedClass);
+      }
+    };
+
+    ObjectGraph graph = ObjectGraph.createWith(loader, module(manifest));
+    graph.validate();
+    assertThat(requested).isEmpty();
+
+    // Bindings are linked as they're used.
+    assertThat(graph.get(Entry.class)).isNotNull();
+    assertThat(requested).containsExactly(ENTRY_KEY);
+  }
+
+  @Test public void validateIgnoresCorruptManifest() throws Exception {
+    String manifest = manifest(Arrays.asList("java.lang.String"),
+        ReflectiveAtInjectBinding.class.getName());
+    manifest = manifest.replace("bound java.lang.String", "bound java.lang.Object");
+
+    assertValidationFails(ObjectGraph.createWith(new TestingLoader(), module(manifest)));
+  }
+
+  private static void assertValidationFails(ObjectGraph graph) {
+    try {
+      graph.validate();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  private static String manifest(List<String> boundKeys, String entryAdapter)
+      throws IOException {
+    Map<String, Binding<?>> bindings = new LinkedHashMap<String, Binding<?>>();
+    bindings.put("java.lang.String", new StubBinding("java.lang.String"));
+    bindings.put(ENTRY_KEY, new StubBinding(ENTRY_KEY));
+    bindings.put(ENTRY_MEMBERS_KEY, new StubBinding(ENTRY_KEY));
+    return manifest(boundKeys, bindings, entryAdapter);
+  }
+
+  private static String manifest(List<String> boundKeys, Map<String, Binding<?>> bindings,
+      String entryAdapter) throws IOException {
+    Map<String, String> adapters = new LinkedHashMap<String, String>();
+    adapters.put(ENTRY_KEY, entryAdapter);
+    adapters.put(ENTRY_MEMBERS_KEY, entryAdapter);
+    StringWriter result = new StringWriter();
+    GraphManifest.write(result,
+        Arrays.asList(GraphManifest.describeModule(UnusedBindingModule.class.getName(), false,
+            true, false, Arrays.asList(ENTRY_MEMBERS_KEY),
+            Collections.<String>emptyList(), Collections.<String>emptyList())),
+        boundKeys, bindings, adapters);
+    return result.toString();
+  }
+
+  /**
+   * Returns an instance of {@link UnusedBindingModule} whose class loader
+   * serves {@code manifest} as its graph manifest, or none if it is null.
+   */
+  private static Object module(String manifest) throws Exception {
+    ClassLoader classLoader = new ManifestClassLoader(UnusedBindingModule.class, manifest);
+    Constructor<?> constructor =
+        classLoader.loadClass(UnusedBindingModule.class.getName()).getDeclaredConstructor();
+    constructor.setAccessible(true);
+    return constructor.newInstance();
+  }
+
+  /** Defines a module class itself, so that its graph manifest is read from this loader. */
+  static final class ManifestClassLoader extends ClassLoader {
+    private final String className;
+    private final String manifest;
+
+    ManifestClassLoader(Class<?> moduleClass, String manifest) {
+      super(moduleClass.getClassLoader());
+      this.className = moduleClass.getName();
+      this.manifest = manifest;
+    }
+
+    @Override protected synchronized Class<?> loadClass(String name, boolean resolve)
+        throws ClassNotFoundException {
+      if (!name.equals(className)) {
+        return super.loadClass(name, resolve);
+      }
+      Class<?> result = findLoadedClass(name);
+      if (result == null) {
+        byte[] bytes = readClassFile(name);
+        result = defineClass(name, bytes, 0, bytes.length);
+      }
+      return result;
+    }
+
+    private byte[] readClassFile(String name) throws ClassNotFoundException {
+      InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+      if (in == null) {
+        throw new ClassNotFoundException(name);
+      }
+      try {
+        try {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          for (int count; (count = in.read(buffer)) != -1;) {
+            out.write(buffer, 0, count);
+          }
+          return out.toByteArray();
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+
+    @Override public InputStream getResourceAsStream(String name) {
+      if (name.equals(className.replace('.', '/') + "$$GraphManifest")) {
+        return manifest != null ? new ByteArrayInputStream(bytes(manifest)) : null;
+      }
+      return super.getResourceAsStream(name);
+    }
+
+    private static byte[] bytes(String s) {
+      try {
+        return s.getBytes("UTF-8");
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  /** A binding with the given dependencies, to describe a manifest. */
+  static final class StubBinding extends Binding<Object> {
+    private final Binding<?>[] dependencies;
+
+    StubBinding(String provideKey, Binding<?>... dependencies) {
+      super(provideKey, null, false, null);
+      this.dependencies = dependencies;
+    }
+
+    @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
+      Collections.addAll(get, dependencies);
+    }
+  }
+}
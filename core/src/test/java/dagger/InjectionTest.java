@@ -695,6 +695,104 @@ public final class InjectionTest {
     }
   }
 
+  static class FieldsOnly {
+    @Inject A a;
+  }
+
+  @Test public void getInstanceAfterValidate() {
+    final AtomicInteger next = new AtomicInteger(0);
+
+    @Module(injects = { Integer.class, FieldsOnly.class }, library = true)
+    class TestModule {
+      @Provides Integer provideInteger() {
+        return next.getAndIncrement();
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    graph.validate();
+    assertThat((int) graph.get(Integer.class)).isEqualTo(0);
+    assertThat((int) graph.get(Integer.class)).isEqualTo(1);
+    assertThat(graph.get(FieldsOnly.class).a).isNotNull();
+    assertThat(graph.inject(new FieldsOnly()).a).isNotNull();
+  }
+
+  @Test public void getInstanceRequiresEntryPointAfterValidate() {
+    @Module(injects = FieldsOnly.class)
+    class TestModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    graph.validate();
+    try {
+      graph.get(A.class);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      graph.inject(new A());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test public void getProvider() {
+    final AtomicInteger next = new AtomicInteger(0);
+
+    @Module(injects = Integer.class, library = true)
+    class TestModule {
+      @Provides Integer provideInteger() {
+        return next.getAndIncrement();
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    Provider<Integer> provider = graph.getProvider(Integer.class);
+    assertThat((int) provider.get()).isEqualTo(0);
+    assertThat((int) provider.get()).isEqualTo(1);
+  }
+
+  @Test public void getProviderRequiresEntryPoint() {
+    @Module
+    class TestModule {
+      @Provides Integer provideInteger() {
+        throw new AssertionError();
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    try {
+      graph.getProvider(Integer.class);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test public void getMembersInjector() {
+    @Module(injects = FieldsOnly.class)
+    class TestModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    MembersInjector<FieldsOnly> membersInjector = graph.getMembersInjector(FieldsOnly.class);
+    FieldsOnly instance = new FieldsOnly();
+    membersInjector.injectMembers(instance);
+    assertThat(instance.a).isNotNull();
+  }
+
+  @Test public void getMembersInjectorRequiresEntryPoint() {
+    @Module(injects = A.class)
+    class TestModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    try {
+      graph.getMembersInjector(FieldsOnly.class);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   @Test public void getInstanceOfPrimitive() {
     @Module(injects = int.class)
     class TestModule {
@@ -15,12 +15,19 @@
  */
 package dagger;
 
+import dagger.internal.Binding;
+import dagger.internal.ProblemDetector;
 import dagger.internal.TestingLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import javax.inject.Inject;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
 @RunWith(JUnit4.class)
@@ -76,6 +83,173 @@ public final class ProblemDetectorTest {
     graph.validate();
   }
 
+  @Test public void validateEntryPointsChecksReachableBindings() {
+    class TestEntryPoint {
+      @Inject Rock rock;
+    }
+
+    @Module(injects = { TestEntryPoint.class, String.class })
+    class TestModule {
+      @Provides String provideString() {
+        throw new AssertionError();
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    graph.validate(String.class);
+    try {
+      graph.validate(TestEntryPoint.class);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).contains("Dependency cycle");
+    }
+  }
+
+  @Test public void validateEntryPointsSkipsUnusedBindingDetection() {
+    class TestEntryPoint {
+      @Inject String string;
+    }
+
+    @Module(injects = TestEntryPoint.class)
+    class TestModule {
+      @Provides String provideString() {
+        return "string";
+      }
+      @Provides Integer provideUnused() {
+        throw new AssertionError();
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    graph.validate(TestEntryPoint.class);
+    assertThat(graph.inject(new TestEntryPoint()).string).isEqualTo("string");
+  }
+
+  @Test public void validateEntryPointsReportsMissingBindings() {
+    class TestEntryPoint {
+      @Inject Runnable runnable;
+    }
+
+    @Module(injects = TestEntryPoint.class)
+    class TestModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    try {
+      graph.validate(TestEntryPoint.class);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).contains("java.lang.Runnable");
+    }
+  }
+
+  @Test public void validateEntryPointsRequiresInjectableTypes() {
+    @Module(injects = String.class)
+    class TestModule {
+      @Provides String provideString() {
+        return "string";
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    try {
+      graph.validate(Integer.class);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test public void allCyclesReported() {
+    ChainBinding a = new ChainBinding("a");
+    ChainBinding b = new ChainBinding("b");
+    ChainBinding c = new ChainBinding("c");
+    ChainBinding d = new ChainBinding("d");
+    ChainBinding self = new ChainBinding("self");
+    a.dependencies.add(b);
+    b.dependencies.add(a);
+    c.dependencies.add(d);
+    d.dependencies.add(c);
+    self.dependencies.add(self);
+    try {
+      new ProblemDetector().detectCircularDependencies(Arrays.<Binding<?>>asList(a, c, self));
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).isEqualTo(""
+          + "Dependency cycle:\n"
+          + "    0. a bound by a\n"
+          + "    1. b bound by b\n"
+          + "    0. a\n"
+          + "Dependency cycle:\n"
+          + "    0. c bound by c\n"
+          + "    1. d bound by d\n"
+          + "    0. c\n"
+          + "Dependency cycle:\n"
+          + "    0. self bound by self\n"
+          + "    0. self");
+    }
+  }
+
+  @Test public void cyclesStillDetectedAfterFailure() {
+    ChainBinding root = new ChainBinding("root");
+    ChainBinding a = new ChainBinding("a");
+    ChainBinding b = new ChainBinding("b");
+    root.dependencies.add(a);
+    a.dependencies.add(b);
+    b.dependencies.add(a);
+    for (int i = 0; i < 2; i++) {
+      try {
+        new ProblemDetector().detectCircularDependencies(Arrays.<Binding<?>>asList(root));
+        fail();
+      } catch (IllegalStateException expected) {
+        assertThat(expected.getMessage()).contains("0. a bound by a");
+      }
+    }
+    assertThat(root.isCycleFree()).isFalse();
+  }
+
+  @Test public void deepChainsDontOverflowTheStack() {
+    List<Binding<?>> chain = new ArrayList<Binding<?>>();
+    ChainBinding first = new ChainBinding("0");
+    ChainBinding last = first;
+    chain.add(first);
+    for (int i = 1; i < 100000; i++) {
+      ChainBinding next = new ChainBinding(Integer.toString(i));
+      last.dependencies.add(next);
+      chain.add(next);
+      last = next;
+    }
+    new ProblemDetector().detectCircularDependencies(Arrays.<Binding<?>>asList(first));
+    assertThat(last.isCycleFree()).isTrue();
+
+    for (Binding<?> binding : chain) {
+      binding.setCycleFree(false);
+    }
+    last.dependencies.add(first);
+    try {
+      new ProblemDetector().detectCircularDependencies(chain);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).startsWith("Dependency cycle:\n    0. 0 bound by 0\n");
+      assertThat(expected.getMessage()).endsWith("99999. 99999 bound by 99999\n    0. 0");
+    }
+  }
+
+  static class ChainBinding extends Binding<Object> {
+    final List<Binding<?>> dependencies = new ArrayList<Binding<?>>();
+
+    ChainBinding(String key) {
+      super(key, null, false, key);
+    }
+
+    @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
+      get.addAll(dependencies);
+    }
+
+    @Override public String toString() {
+      return provideKey;
+    }
+  }
+
   static class Rock {
     @Inject Scissors scissors;
   }
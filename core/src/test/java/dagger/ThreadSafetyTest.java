@@ -27,12 +27,14 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * Test Singleton and Lazy bindings for thread-safety.
@@ -112,4 +114,57 @@ public final class ThreadSafetyTest {
           .isEqualTo(0);
     }
   }
+
+  static class Leaf {
+    @Inject Leaf() {}
+  }
+
+  static class Branch {
+    @Inject Leaf left;
+    @Inject Leaf right;
+    @Inject Branch() {}
+  }
+
+  static class Root {
+    @Inject Branch branch;
+    @Inject Provider<Leaf> leafProvider;
+    @Inject Lazy<Branch> lazyBranch;
+  }
+
+  static class Unsatisfied {
+    @Inject Unsatisfied(Runnable first, Comparable<?> second) {}
+  }
+
+  @Test public void concurrentValidation() {
+    @Module(injects = Root.class)
+    class TestModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new TestModule());
+    graph.validate(es);
+    Root root = graph.get(Root.class);
+    assertThat(root.branch.left).isNotNull();
+    assertThat(root.leafProvider.get()).isNotNull();
+    assertThat(root.lazyBranch.get()).isNotNull();
+  }
+
+  @Test public void concurrentValidationReportsSameErrors() {
+    @Module(injects = { Root.class, Unsatisfied.class })
+    class TestModule {
+    }
+
+    String expected = null;
+    try {
+      ObjectGraph.createWith(new TestingLoader(), new TestModule()).validate();
+      fail();
+    } catch (IllegalStateException e) {
+      expected = e.getMessage();
+    }
+    try {
+      ObjectGraph.createWith(new TestingLoader(), new TestModule()).validate(es);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).isEqualTo(expected);
+    }
+  }
 }
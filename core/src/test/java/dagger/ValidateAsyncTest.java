@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import dagger.internal.Binding;
+import dagger.internal.Loader;
+import dagger.internal.ModuleAdapter;
+import dagger.internal.StaticInjection;
+import dagger.internal.TestingLoader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class ValidateAsyncTest {
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  static class Fast {
+    @Inject Fast() { }
+  }
+
+  static class Slow {
+    @Inject Slow() { }
+  }
+
+  @Module(injects = { Fast.class, Slow.class })
+  static class AppModule {
+  }
+
+  /** Has an unused binding, which only validation detects. */
+  @Module(injects = Fast.class)
+  static class UnusedBindingModule {
+    @Provides String provideUnused() {
+      return "unused";
+    }
+  }
+
+  @Test public void validateAsyncSucceeds() throws Exception {
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new AppModule());
+    Future<Void> validation = graph.validateAsync(executor, true);
+    assertThat(validation.get(10, TimeUnit.SECONDS)).isNull();
+    assertThat(graph.get(Slow.class)).isNotNull();
+  }
+
+  @Test public void linkedEntryPointsDontWaitForValidation() throws Exception {
+    final CountDownLatch slowRequested = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Loader loader = new Loader() {
+      @Override public Binding<?> getAtInjectBinding(String key, String className,
+          ClassLoader classLoader, boolean mustHaveInjections) {
+        if (className.equals(Slow.class.getName())) {
+          slowRequested.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+        return new TestingLoader().getAtInjectBinding(
+            key, className, classLoader, mustHaveInjections);
+      }
+
+      @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+        return new TestingLoader().getModuleAdapter(moduleClass);
+      }
+
+      @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    ObjectGraph graph = ObjectGraph.createWith(loader, new AppModule());
+    graph.validate(Fast.class);
+    Future<Void> validation = graph.validateAsync(executor, true);
+    assertThat(slowRequested.await(10, TimeUnit.SECONDS)).isTrue();
+
+    // Validation holds the linker while it waits for Slow's binding.
+    graph.inject(new Fast());
+    assertThat(validation.isDone()).isFalse();
+
+    release.countDown();
+    validation.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test public void failureIsReportedByFuture() throws Exception {
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new UnusedBindingModule());
+    Future<Void> validation = graph.validateAsync(executor, false);
+    try {
+      validation.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+    assertThat(graph.get(Fast.class)).isNotNull();
+  }
+
+  @Test public void failureFailsGraph() throws Exception {
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new UnusedBindingModule());
+    Future<Void> validation = graph.validateAsync(executor, true);
+    try {
+      validation.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+    }
+    try {
+      graph.get(Fast.class);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger;
+
+import dagger.internal.TestingLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.Provides.Type.SET;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class WarmUpTest {
+  private static final List<String> created = Collections.synchronizedList(new ArrayList<String>());
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After public void tearDown() {
+    executor.shutdown();
+    created.clear();
+  }
+
+  @Singleton
+  static class Database {
+    @Inject Database() {
+      created.add("Database");
+    }
+  }
+
+  @Singleton
+  static class Cache {
+    @Inject Cache() {
+      created.add("Cache");
+    }
+  }
+
+  /** Not a singleton; its dependencies are still created before its users. */
+  static class Repository {
+    @Inject Database database;
+    @Inject Cache cache;
+  }
+
+  @Singleton
+  static class Service {
+    @Inject Repository repository;
+    @Inject Set<String> names;
+
+    @Inject Service() {
+      created.add("Service");
+    }
+  }
+
+  static class Entry {
+    @Inject Service service;
+  }
+
+  @Module(injects = Entry.class)
+  static class AppModule {
+    @Provides(type = SET) @Singleton String provideName(Cache cache) {
+      created.add("name");
+      return "name";
+    }
+  }
+
+  @Test public void warmUpCreatesSingletonsAfterTheirDependencies() throws Exception {
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new AppModule());
+    Map<String, Long> nanos = graph.warmUp(executor).get(10, TimeUnit.SECONDS);
+
+    assertThat(created).containsExactly("Database", "Cache", "name", "Service");
+    assertThat(created.indexOf("Service")).isGreaterThan(created.indexOf("Database"));
+    assertThat(created.indexOf("Service")).isGreaterThan(created.indexOf("name"));
+    assertThat(created.indexOf("name")).isGreaterThan(created.indexOf("Cache"));
+    assertThat(nanos.keySet()).containsExactly(Database.class.getName(), Cache.class.getName(),
+        String.class.getName(), Service.class.getName());
+
+    // Singletons aren't created again.
+    graph.get(Entry.class);
+    assertThat(created).hasSize(4);
+  }
+
+  /** A cycle of bindings that aren't singletons, broken by a provider. */
+  static class Left {
+    @Inject Provider<Right> right;
+    @Inject Database database;
+  }
+
+  static class Right {
+    @Inject Left left;
+    @Inject Cache cache;
+  }
+
+  @Singleton
+  static class Hub {
+    @Inject Right right;
+
+    @Inject Hub() {
+      created.add("Hub");
+    }
+  }
+
+  @Test public void warmUpFollowsCyclesOfBindingsThatArentSingletons() throws Exception {
+    @Module(injects = Hub.class)
+    class CycleModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new CycleModule());
+    graph.warmUp(executor).get(10, TimeUnit.SECONDS);
+
+    assertThat(created).containsExactly("Database", "Cache", "Hub");
+    assertThat(created.indexOf("Hub")).isGreaterThan(created.indexOf("Database"));
+    assertThat(created.indexOf("Hub")).isGreaterThan(created.indexOf("Cache"));
+  }
+
+  @Test public void warmUpWithoutSingletons() throws Exception {
+    @Module(injects = Repository.class, library = true)
+    class EmptyModule {
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new EmptyModule());
+    assertThat(graph.warmUp(executor).get(10, TimeUnit.SECONDS)).hasSize(2);
+    ObjectGraph child = graph.plus(new Object[0]);
+    assertThat(child.warmUp(executor).get(10, TimeUnit.SECONDS)).isEmpty();
+  }
+
+  @Test public void warmUpReportsFailure() throws Exception {
+    final RuntimeException failure = new RuntimeException("boom");
+
+    @Module(injects = Entry.class)
+    class FailingModule {
+      @Provides(type = SET) @Singleton String provideName() {
+        throw failure;
+      }
+    }
+
+    ObjectGraph graph = ObjectGraph.createWith(new TestingLoader(), new FailingModule());
+    try {
+      graph.warmUp(executor).get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected.getCause()).isSameAs(failure);
+    }
+    // Singletons that don't depend on the failed one are still created.
+    assertThat(created).containsExactly("Database", "Cache");
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.Module;
+import dagger.ObjectGraph;
+import dagger.Provides;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Tests that adapters listed by an index in {@code
+ * META-INF/dagger/module-adapter-indexes} are created by that index.
+ */
+@RunWith(JUnit4.class)
+public final class AdapterIndexTest {
+  private static final AtomicInteger indexedCreations = new AtomicInteger();
+
+  @Module(injects = IndexedEntry.class)
+  static class IndexedModule {
+    @Provides String provideString() {
+      return "indexed";
+    }
+  }
+
+  public static final class IndexedModule$$ModuleAdapter
+      extends TestingModuleAdapter<IndexedModule> {
+    public IndexedModule$$ModuleAdapter() {
+      super(IndexedModule.class, IndexedModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  static class IndexedEntry {
+    @Inject String string;
+  }
+
+  public static final class TestIndex extends AdapterIndex {
+    public TestIndex() {
+      super(IndexedModule$$ModuleAdapter.class.getName());
+    }
+
+    @Override protected Object create(int index) {
+      assertThat(index).isEqualTo(0);
+      indexedCreations.incrementAndGet();
+      return new IndexedModule$$ModuleAdapter();
+    }
+  }
+
+  @Module(injects = StaleEntry.class)
+  static class StaleModule {
+    @Provides String provideString() {
+      return "by name";
+    }
+  }
+
+  public static final class StaleModule$$ModuleAdapter
+      extends TestingModuleAdapter<StaleModule> {
+    public StaleModule$$ModuleAdapter() {
+      super(StaleModule.class, StaleModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  static class StaleEntry {
+    @Inject String string;
+  }
+
+  /** An index compiled against an adapter that is no longer on the class path. */
+  public static final class StaleIndex extends AdapterIndex {
+    public StaleIndex() {
+      super(StaleModule$$ModuleAdapter.class.getName());
+    }
+
+    @Override protected Object create(int index) {
+      throw new NoClassDefFoundError(StaleModule$$ModuleAdapter.class.getName());
+    }
+  }
+
+  @Test public void indexedAdaptersAreCreatedByTheirIndex() {
+    int before = indexedCreations.get();
+    IndexedEntry entry = ObjectGraph.create(new IndexedModule()).get(IndexedEntry.class);
+    assertThat(entry.string).isEqualTo("indexed");
+    assertThat(indexedCreations.get()).isEqualTo(before + 1);
+  }
+
+  @Test public void staleIndexesFallBackToLookupByName() {
+    assertThat(AdapterIndex.newIndexedAdapter(null, StaleModule$$ModuleAdapter.class.getName()))
+        .isNull();
+    StaleEntry entry = ObjectGraph.create(new StaleModule()).get(StaleEntry.class);
+    assertThat(entry.string).isEqualTo("by name");
+  }
+
+  @Test public void unindexedAdaptersAreNotCreated() {
+    assertThat(AdapterIndex.newIndexedAdapter(null, "dagger.internal.Missing$$InjectAdapter"))
+        .isNull();
+  }
+}
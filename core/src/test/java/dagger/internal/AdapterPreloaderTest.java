@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.Module;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Inject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public final class AdapterPreloaderTest {
+  private static final Executor DIRECT = new Executor() {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private final List<String> loaded = Collections.synchronizedList(new ArrayList<String>());
+
+  /** Records what is loaded, and fails to load classes named Broken. */
+  private final Loader loader = new Loader() {
+    private final Loader delegate = new TestingLoader();
+
+    @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+      loaded.add(moduleClass.getSimpleName());
+      return delegate.getModuleAdapter(moduleClass);
+    }
+
+    @Override public Binding<?> getAtInjectBinding(
+        String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
+      loaded.add(key);
+      if (className.endsWith("Broken")) {
+        throw new IllegalStateException("broken");
+      }
+      return delegate.getAtInjectBinding(key, className, classLoader, mustHaveInjections);
+    }
+
+    @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  static class A {
+    @Inject A() {
+    }
+  }
+
+  static class B {
+    @Inject A a;
+  }
+
+  static class Broken {
+    @Inject Broken() {
+    }
+  }
+
+  @Module(injects = { A.class, Broken.class })
+  static class ChildModule {
+  }
+
+  @Module(injects = { B.class, String.class }, includes = ChildModule.class)
+  static class RootModule {
+  }
+
+  @Module(includes = ChildModule.class)
+  static class OtherRootModule {
+  }
+
+  @Test public void preloadsIncludedModulesAndInjectableTypes() {
+    AdapterPreloader.start(loader, new Object[] {new RootModule(), OtherRootModule.class}, DIRECT);
+    assertThat(loaded).containsExactly(
+        "RootModule",
+        "ChildModule",
+        "members/" + A.class.getName(),
+        "members/" + Broken.class.getName(),
+        "members/" + B.class.getName(),
+        "OtherRootModule").inOrder();
+  }
+
+  @Test public void rejectedPreloadsAreSkipped() {
+    AdapterPreloader.start(loader, new Object[] {RootModule.class}, new Executor() {
+      @Override public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    });
+    assertThat(loaded).isEmpty();
+  }
+}
@@ -19,6 +19,12 @@ package dagger.internal;
 import dagger.Module;
 import dagger.ObjectGraph;
 import dagger.Provides;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.inject.Inject;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -54,4 +60,95 @@ public final class FailoverLoaderTest {
     ObjectGraph.create(new TestModule()).inject(entryPoint);
     assertThat(entryPoint.a).isEqualTo("a");
   }
+
+  @Test public void preloadingGraphUsesTheSameAdapters() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ObjectGraph graph = ObjectGraph.builder().preloadAdapters(executor).create(new TestModule());
+      assertThat(graph.inject(new Entry$Point()).a).isEqualTo("a");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Module(injects = PluginEntry.class, addsTo = TestModule.class)
+  public static class PluginModule {
+  }
+
+  public static final class PluginModule$$ModuleAdapter
+      extends TestingModuleAdapter<PluginModule> {
+    public PluginModule$$ModuleAdapter() {
+      super(PluginModule.class, PluginModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  public static class PluginEntry {
+    @Inject public String a;
+  }
+
+  @Test public void pluginClassLoadersCanBeCollected() throws Exception {
+    ObjectGraph graph = ObjectGraph.create(new TestModule());
+    WeakReference<ClassLoader> pluginLoader = extendWithPlugin(graph);
+    for (int i = 0; i < 10 && pluginLoader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(pluginLoader.get()).isNull();
+    assertThat(graph.inject(new Entry$Point()).a).isEqualTo("a"); // Keeps the graph reachable.
+  }
+
+  /** Uses a child graph whose module and entry point are loaded by a plugin class loader. */
+  private WeakReference<ClassLoader> extendWithPlugin(ObjectGraph graph) throws Exception {
+    ClassLoader pluginLoader = new PluginClassLoader();
+    Class<?> moduleClass = pluginLoader.loadClass(PluginModule.class.getName());
+    Class<?> entryClass = pluginLoader.loadClass(PluginEntry.class.getName());
+    assertThat(moduleClass).isNotSameAs(PluginModule.class);
+
+    Object entry = graph.plus(moduleClass.newInstance()).get(entryClass);
+    assertThat(entryClass.getField("a").get(entry)).isEqualTo("a");
+    return new WeakReference<ClassLoader>(pluginLoader);
+  }
+
+  /** Loads this test's plugin classes itself, and delegates other classes to its parent. */
+  private static final class PluginClassLoader extends ClassLoader {
+    private static final String PREFIX = FailoverLoaderTest.class.getName() + "$Plugin";
+
+    PluginClassLoader() {
+      super(FailoverLoaderTest.class.getClassLoader());
+    }
+
+    @Override protected synchronized Class<?> loadClass(String name, boolean resolve)
+        throws ClassNotFoundException {
+      if (!name.startsWith(PREFIX)) {
+        return super.loadClass(name, resolve);
+      }
+      Class<?> result = findLoadedClass(name);
+      if (result == null) {
+        byte[] bytes = readClassFile(name);
+        result = defineClass(name, bytes, 0, bytes.length);
+      }
+      return result;
+    }
+
+    private byte[] readClassFile(String name) throws ClassNotFoundException {
+      InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+      if (in == null) {
+        throw new ClassNotFoundException(name);
+      }
+      try {
+        try {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          for (int count; (count = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, count);
+          }
+          return out.toByteArray();
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.Module;
+import dagger.ObjectGraph;
+import javax.inject.Inject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class GeneratedOnlyLoaderTest {
+  public static class Generated {
+  }
+
+  /** Stands in for the adapter generated for {@link Generated}. */
+  public static final class Generated$$InjectAdapter extends Binding<Generated> {
+    public Generated$$InjectAdapter() {
+      super(Keys.get(Generated.class), Keys.getMembersKey(Generated.class), NOT_SINGLETON,
+          Generated.class);
+    }
+
+    @Override public Generated get() {
+      return new Generated();
+    }
+  }
+
+  static class Reflective {
+    @Inject Reflective() {
+    }
+  }
+
+  static class AlsoReflective {
+    @Inject Generated generated;
+  }
+
+  static class StaticallyInjected {
+    @Inject static Generated generated;
+  }
+
+  @Module(injects = Generated.class)
+  public static class GeneratedModule {
+  }
+
+  public static final class GeneratedModule$$ModuleAdapter
+      extends TestingModuleAdapter<GeneratedModule> {
+    public GeneratedModule$$ModuleAdapter() {
+      super(GeneratedModule.class, GeneratedModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  @Module(injects = { Generated.class, Reflective.class, AlsoReflective.class })
+  public static class ReflectiveModule {
+  }
+
+  public static final class ReflectiveModule$$ModuleAdapter
+      extends TestingModuleAdapter<ReflectiveModule> {
+    public ReflectiveModule$$ModuleAdapter() {
+      super(ReflectiveModule.class, ReflectiveModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  @Module(staticInjections = StaticallyInjected.class)
+  public static class StaticModule {
+  }
+
+  public static final class StaticModule$$ModuleAdapter
+      extends TestingModuleAdapter<StaticModule> {
+    public StaticModule$$ModuleAdapter() {
+      super(StaticModule.class, StaticModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  @Test public void generatedAdaptersAreUsed() {
+    ObjectGraph graph = ObjectGraph.builder().withoutReflection().create(new GeneratedModule());
+    graph.validate();
+    assertThat(graph.get(Generated.class)).isNotNull();
+  }
+
+  @Test public void everyTypeThatNeedsReflectionIsReported() {
+    ObjectGraph graph = ObjectGraph.builder().withoutReflection().create(new ReflectiveModule());
+    try {
+      graph.validate();
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).contains(Reflective.class.getName() + " has no generated");
+      assertThat(expected.getMessage())
+          .contains(AlsoReflective.class.getName() + " has no generated");
+      assertThat(expected.getMessage()).doesNotContain(Generated.class.getName() + " has");
+    }
+  }
+
+  @Test public void staticInjectionsThatNeedReflectionAreReported() {
+    ObjectGraph graph = ObjectGraph.builder().withoutReflection().create(new StaticModule());
+    try {
+      graph.injectStatics();
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage())
+          .contains(StaticallyInjected.class.getName() + " has no generated static injection");
+    }
+    assertThat(StaticallyInjected.generated).isNull();
+  }
+}
@@ -145,6 +145,15 @@ public final class KeysTest {
         .isEqualTo("@javax.inject.Named(value=foo)/java.util.Set<java.lang.String>");
   }
 
+  @Named("/@") Provider<List<String>> providerOfListAnnotated;
+  @Test public void delegateKeyKeepsQualifierContainingSeparator()
+      throws NoSuchFieldException {
+    Named qualifier = KeysTest.class.getDeclaredField("providerOfListAnnotated")
+        .getAnnotation(Named.class);
+    assertThat(Keys.getBuiltInBindingsKey(fieldKey("providerOfListAnnotated")))
+        .isEqualTo(qualifier + "/java.util.List<java.lang.String>");
+  }
+
   private String fieldKey(String fieldName) throws NoSuchFieldException {
     Field field = KeysTest.class.getDeclaredField(fieldName);
     return Keys.get(field.getGenericType(), field.getAnnotations(), field);
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the amount of work done by the {@link Linker} on synthetic graphs of
+ * just-in-time bindings.
+ */
+@RunWith(JUnit4.class)
+public final class LinkerTest {
+  private final Map<String, Integer> attachCounts = new HashMap<String, Integer>();
+
+  @Test public void deepChainAttachesEachBindingOnce() {
+    linkLattice(1, 500, null);
+    assertThat(attachCounts).hasSize(501);
+    for (int count : attachCounts.values()) {
+      assertThat(count).isEqualTo(1);
+    }
+  }
+
+  @Test public void sharedDependenciesAreAttachedOnce() {
+    // Every node depends on every node of the next layer.
+    linkLattice(10, 20, null);
+    assertThat(attachCounts).hasSize(10 * 20 + 10);
+    for (int count : attachCounts.values()) {
+      assertThat(count).isEqualTo(1);
+    }
+  }
+
+  @Test public void concurrentLinkingAttachesEachBindingAtMostTwice() {
+    Executor executor = new Executor() {
+      @Override public void execute(Runnable command) {
+        command.run();
+      }
+    };
+    linkLattice(10, 20, executor);
+    assertThat(attachCounts).hasSize(10 * 20 + 10);
+    for (int count : attachCounts.values()) {
+      assertThat(count).isAtMost(2);
+    }
+  }
+
+  @Test public void retryAfterDependencyFailsReportsTheErrorAgain() {
+    final int[] failures = {1};
+    Loader loader = new Loader() {
+      @Override public Binding<?> getAtInjectBinding(
+          String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
+        if (key.equals("dependency") && failures[0]-- > 0) {
+          throw new IllegalStateException("Unable to create binding for " + key);
+        }
+        return new DependentBinding(key, null);
+      }
+
+      @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    BindingsGroup installed = new BindingsGroup() {
+      @Override public Binding<?> contributeSetBinding(String key, SetBinding<?> value) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    DependentBinding entryPoint = new DependentBinding("entryPoint", "dependency");
+    installed.put("entryPoint", entryPoint);
+    Linker linker = new Linker(null, loader, new ThrowingErrorHandler());
+    linker.installBindings(installed);
+
+    synchronized (linker) {
+      linker.requestBinding("entryPoint", "test", null);
+      try {
+        linker.linkRequested();
+        fail();
+      } catch (IllegalStateException expected) {
+        assertThat(expected.getMessage()).isEqualTo("Unable to create binding for dependency");
+      }
+      assertThat(entryPoint.isLinked()).isFalse();
+
+      for (int i = 0; i < 2; i++) {
+        assertThat(linker.requestBinding("entryPoint", "test", null)).isSameAs(entryPoint);
+        try {
+          linker.linkRequested();
+          fail();
+        } catch (IllegalStateException expected) {
+          assertThat(expected.getMessage())
+              .contains("Unable to create binding for dependency required by entryPoint");
+        }
+        assertThat(entryPoint.isLinked()).isFalse();
+      }
+    }
+  }
+
+  @Test public void retryAfterAttachFailsAttachesAgain() {
+    final int[] failures = {1};
+    BindingsGroup installed = new BindingsGroup() {
+      @Override public Binding<?> contributeSetBinding(String key, SetBinding<?> value) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    Binding<?> entryPoint = new DependentBinding("entryPoint", null) {
+      @Override public void attach(Linker linker) {
+        if (failures[0]-- > 0) {
+          throw new IllegalStateException("attach failed");
+        }
+      }
+    };
+    installed.put("entryPoint", entryPoint);
+    Linker linker = new Linker(null, new TestingLoader(), new ThrowingErrorHandler());
+    linker.installBindings(installed);
+
+    synchronized (linker) {
+      linker.requestBinding("entryPoint", "test", null);
+      try {
+        linker.linkRequested();
+        fail();
+      } catch (IllegalStateException expected) {
+        assertThat(expected.getMessage()).isEqualTo("attach failed");
+      }
+      linker.requestBinding("entryPoint", "test", null);
+      linker.linkRequested();
+      assertThat(entryPoint.isLinked()).isTrue();
+    }
+  }
+
+  @Test public void childLinkersSkipUnlinkedBaseBindings() {
+    BindingsGroup installed = new BindingsGroup() {
+      @Override public Binding<?> contributeSetBinding(String key, SetBinding<?> value) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    DependentBinding unlinked = new DependentBinding("dependency", null);
+    installed.put("dependency", unlinked);
+    Linker base = new Linker(null, new TestingLoader(), new ThrowingErrorHandler());
+    base.installBindings(installed);
+
+    Loader loader = new Loader() {
+      @Override public Binding<?> getAtInjectBinding(
+          String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
+        return new DependentBinding(key, null);
+      }
+
+      @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    Linker child = new Linker(base, loader, new ThrowingErrorHandler());
+    synchronized (child) {
+      assertThat(child.requestBinding("dependency", "test", null)).isNull();
+      child.linkRequested();
+      Binding<?> binding = child.requestBinding("dependency", "test", null);
+      assertThat(binding).isNotSameAs(unlinked);
+      assertThat(binding.isLinked()).isTrue();
+    }
+  }
+
+  /** Depends on the binding for {@code dependencyKey}, if it isn't null. */
+  private static class DependentBinding extends Binding<Object> {
+    private final String dependencyKey;
+    private Binding<?> dependency;
+
+    DependentBinding(String key, String dependencyKey) {
+      super(key, null, NOT_SINGLETON, key);
+      this.dependencyKey = dependencyKey;
+    }
+
+    @Override public void attach(Linker linker) {
+      if (dependencyKey != null) {
+        dependency = linker.requestBinding(dependencyKey, provideKey, null);
+      }
+    }
+
+    @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
+      get.add(dependency);
+    }
+  }
+
+  /**
+   * Links a graph of {@code depth + 1} layers of {@code width} nodes, in which
+   * each node depends on all nodes of the following layer.
+   *
+   * @param executor the executor on which to create bindings, or null to
+   *     create them while linking.
+   */
+  private void linkLattice(final int width, final int depth, Executor executor) {
+    Loader loader = new Loader() {
+      @Override public Binding<?> getAtInjectBinding(
+          String key, String className, ClassLoader classLoader, boolean mustHaveInjections) {
+        return new NodeBinding(key, width, depth);
+      }
+
+      @Override public <T> ModuleAdapter<T> getModuleAdapter(Class<T> moduleClass) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override public StaticInjection getStaticInjection(Class<?> injectedClass) {
+        throw new UnsupportedOperationException();
+      }
+    };
+    Linker linker = new Linker(null, loader, new ThrowingErrorHandler());
+    synchronized (linker) {
+      for (int n = 0; n < width; n++) {
+        linker.requestBinding(key(0, n), "test", null);
+      }
+      if (executor != null) {
+        linker.linkAll(executor);
+      } else {
+        linker.linkAll();
+      }
+    }
+  }
+
+  private static String key(int layer, int n) {
+    return "lattice.L" + layer + "N" + n;
+  }
+
+  private final class NodeBinding extends Binding<Object> {
+    private final Binding<?>[] dependencies;
+    private final String[] dependencyKeys;
+
+    NodeBinding(String key, int width, int depth) {
+      super(key, null, NOT_SINGLETON, key);
+      int layer = Integer.parseInt(key.substring(key.indexOf('L') + 1, key.indexOf('N')));
+      int count = (layer < depth) ? width : 0;
+      dependencies = new Binding<?>[count];
+      dependencyKeys = new String[count];
+      for (int n = 0; n < count; n++) {
+        dependencyKeys[n] = key(layer + 1, n);
+      }
+    }
+
+    @Override public void attach(Linker linker) {
+      Integer count = attachCounts.get(provideKey);
+      attachCounts.put(provideKey, (count == null) ? 1 : count + 1);
+      for (int i = 0; i < dependencies.length; i++) {
+        dependencies[i] = linker.requestBinding(dependencyKeys[i], provideKey, null);
+      }
+    }
+
+    @Override public void getDependencies(Set<Binding<?>> get, Set<Binding<?>> injectMembers) {
+      for (Binding<?> dependency : dependencies) {
+        get.add(dependency);
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class MemoizerTest {
+  @Test public void createsEachValueOnce() {
+    final AtomicInteger creations = new AtomicInteger();
+    Memoizer<String, String> memoizer = new Memoizer<String, String>() {
+      @Override protected String create(String key) {
+        creations.incrementAndGet();
+        return key.toUpperCase();
+      }
+    };
+    String a = memoizer.get("a");
+    assertThat(a).isEqualTo("A");
+    assertThat(memoizer.get("a")).isSameAs(a);
+    assertThat(memoizer.get("b")).isEqualTo("B");
+    assertThat(creations.get()).isEqualTo(2);
+    assertThat(memoizer.toString()).isEqualTo("{a=A, b=B}");
+  }
+
+  @Test public void concurrentCallersShareOneCreation() throws Exception {
+    final AtomicInteger creations = new AtomicInteger();
+    final CountDownLatch creating = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Memoizer<String, Object> memoizer = new Memoizer<String, Object>() {
+      @Override protected Object create(String key) {
+        creations.incrementAndGet();
+        creating.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        return new Object();
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Object>> results = new ArrayList<Future<Object>>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(new Callable<Object>() {
+          @Override public Object call() {
+            return memoizer.get("key");
+          }
+        }));
+      }
+      assertThat(creating.await(10, TimeUnit.SECONDS)).isTrue();
+      release.countDown();
+      Object value = results.get(0).get(10, TimeUnit.SECONDS);
+      for (Future<Object> result : results) {
+        assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(value);
+      }
+      assertThat(creations.get()).isEqualTo(1);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test public void failedCreationIsRetried() {
+    final AtomicInteger creations = new AtomicInteger();
+    Memoizer<String, String> memoizer = new Memoizer<String, String>() {
+      @Override protected String create(String key) {
+        if (creations.incrementAndGet() == 1) {
+          throw new IllegalStateException("first");
+        }
+        return key;
+      }
+    };
+    try {
+      memoizer.get("a");
+      fail();
+    } catch (IllegalStateException expected) {
+      assertThat(expected.getMessage()).isEqualTo("first");
+    }
+    assertThat(memoizer.toString()).isEqualTo("{}");
+    assertThat(memoizer.get("a")).isEqualTo("a");
+    assertThat(creations.get()).isEqualTo(2);
+  }
+
+  @Test public void nullValuesAreRejected() {
+    Memoizer<String, String> memoizer = new Memoizer<String, String>() {
+      @Override protected String create(String key) {
+        return null;
+      }
+    };
+    try {
+      memoizer.get("a");
+      fail();
+    } catch (NullPointerException expected) {
+      assertThat(expected.getMessage()).isEqualTo("create returned null");
+    }
+  }
+}
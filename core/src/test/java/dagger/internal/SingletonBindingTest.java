@@ -48,16 +48,6 @@ public final class SingletonBindingTest {
     assertThat(singletonBinding.isLinked()).isTrue();
   }
 
-  @Test public void testSingletonBindingDelegatesSetVisiting() {
-    singletonBinding.setVisiting(true);
-    assertThat(wrappedBinding.isVisiting()).isTrue();
-  }
-
-  @Test public void testSingletonBindingDelegatesIsVisiting() {
-    wrappedBinding.setVisiting(true);
-    assertThat(singletonBinding.isVisiting()).isTrue();
-  }
-
   @Test public void testSingletonBindingDelegatesSetCycleFree() {
     singletonBinding.setCycleFree(true);
     assertThat(wrappedBinding.isCycleFree()).isTrue();
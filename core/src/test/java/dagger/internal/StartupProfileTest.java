@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal;
+
+import dagger.Module;
+import dagger.ObjectGraph;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class StartupProfileTest {
+  /** Runs tasks when asked to, so that tests can check what was prefetched. */
+  private final List<Runnable> tasks = new ArrayList<Runnable>();
+  private final Executor executor = new Executor() {
+    @Override public void execute(Runnable command) {
+      tasks.add(command);
+    }
+  };
+
+  @Singleton
+  static class Database {
+    @Inject Database() {
+    }
+  }
+
+  static class Entry {
+    @Inject Database database;
+  }
+
+  @Module(injects = Entry.class)
+  public static class AppModule {
+  }
+
+  public static final class AppModule$$ModuleAdapter extends TestingModuleAdapter<AppModule> {
+    public AppModule$$ModuleAdapter() {
+      super(AppModule.class, AppModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  @Singleton
+  static class Cache {
+    static boolean created;
+
+    @Inject Cache() {
+      created = true;
+    }
+  }
+
+  @Module(injects = { Database.class, Cache.class })
+  public static class CacheModule {
+  }
+
+  public static final class CacheModule$$ModuleAdapter extends TestingModuleAdapter<CacheModule> {
+    public CacheModule$$ModuleAdapter() {
+      super(CacheModule.class, CacheModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  @Test public void recordsClassesBindingsAndSingletons() throws Exception {
+    ObjectGraph graph = ObjectGraph.builder().recordStartupProfile().create(new AppModule());
+    graph.get(Entry.class);
+
+    assertThat(lines(writeProfile(graph))).containsExactly(
+        "# Dagger startup profile",
+        "class 0 " + AppModule.class.getName() + "$$ModuleAdapter",
+        "class 0 " + Entry.class.getName(), // No adapter was generated; it's bound by reflection.
+        "binding-without-injections 0 " + Entry.class.getName(),
+        "class 0 " + Database.class.getName(),
+        "binding 0 " + Database.class.getName(),
+        "singleton " + Database.class.getName()).inOrder();
+  }
+
+  @Test public void replayPrefetchesRecordedBindings() throws Exception {
+    ObjectGraph recording = ObjectGraph.builder().recordStartupProfile().create(new AppModule());
+    Entry recorded = recording.get(Entry.class);
+    byte[] profile = writeProfile(recording);
+
+    ObjectGraph graph = ObjectGraph.builder()
+        .startupProfile(new ByteArrayInputStream(profile), executor)
+        .create(new AppModule());
+    assertThat(tasks).hasSize(3); // Loads the classes, and creates two bindings.
+    for (Runnable task : tasks) {
+      task.run();
+    }
+    Entry entry = graph.get(Entry.class);
+    assertThat(entry.database).isNotNull();
+    assertThat(entry.database).isNotSameAs(recorded.database);
+    assertThat(graph.get(Entry.class).database).isSameAs(entry.database);
+  }
+
+  @Test public void replayingGraphsCanRecordAgain() throws Exception {
+    ObjectGraph recording = ObjectGraph.builder().recordStartupProfile().create(new AppModule());
+    recording.get(Entry.class);
+    byte[] profile = writeProfile(recording);
+
+    ObjectGraph graph = ObjectGraph.builder()
+        .startupProfile(new ByteArrayInputStream(profile), executor)
+        .recordStartupProfile()
+        .create(new AppModule());
+    for (Runnable task : tasks) {
+      task.run();
+    }
+    graph.get(Entry.class);
+    assertThat(lines(writeProfile(graph))).containsAllOf(
+        "binding-without-injections 0 " + Entry.class.getName(),
+        "binding 0 " + Database.class.getName(),
+        "singleton " + Database.class.getName());
+  }
+
+  @Test public void unusedAndUnknownEntriesAreIgnored() throws Exception {
+    byte[] profile = ("# Dagger startup profile\n"
+        + "class 0 com.example.Missing\n"
+        + "binding 0 com.example.Missing\n"
+        + "binding 1 " + Database.class.getName() + "\n" // No such class loader.
+        + "binding " + Database.class.getName() + "\n"
+        + "unknown entry\n").getBytes("UTF-8");
+    ObjectGraph graph = ObjectGraph.builder()
+        .startupProfile(new ByteArrayInputStream(profile), executor)
+        .create(new AppModule());
+    for (Runnable task : tasks) {
+      task.run();
+    }
+    assertThat(graph.get(Entry.class).database).isNotNull();
+  }
+
+  @Test public void warmUpStartsWithProfiledSingletons() throws Exception {
+    byte[] profile = ("# Dagger startup profile\n"
+        + "singleton " + Cache.class.getName() + "\n"
+        + "singleton " + Database.class.getName() + "\n").getBytes("UTF-8");
+    ObjectGraph graph = ObjectGraph.builder()
+        .startupProfile(new ByteArrayInputStream(profile), executor)
+        .create(new CacheModule());
+    tasks.clear();
+    graph.warmUp(executor);
+    assertThat(tasks).hasSize(2);
+    tasks.get(0).run();
+    assertThat(Cache.created).isTrue();
+  }
+
+  @Test public void onlyRecordingGraphsWriteProfiles() throws Exception {
+    ObjectGraph graph = ObjectGraph.create(new AppModule());
+    try {
+      graph.writeStartupProfile(new ByteArrayOutputStream());
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  private static byte[] writeProfile(ObjectGraph graph) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    graph.writeStartupProfile(out);
+    return out.toByteArray();
+  }
+
+  private static List<String> lines(byte[] profile) throws Exception {
+    return Arrays.asList(new String(profile, "UTF-8").split("\n"));
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2016 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.internal.loaders;
+
+import dagger.Module;
+import dagger.ObjectGraph;
+import dagger.internal.Binding;
+import dagger.internal.Binding.InvalidBindingException;
+import dagger.internal.TestingModuleAdapter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import javax.inject.Inject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public final class ReflectiveAtInjectBindingTest {
+  static class Injected {
+    @Inject String string;
+  }
+
+  static class NotInjected {
+  }
+
+  @Test public void bindingsShareClassInjections() {
+    Binding<Injected> a = ReflectiveAtInjectBinding.create(Injected.class, true);
+    Binding<Injected> b = ReflectiveAtInjectBinding.create(Injected.class, true);
+    assertThat(b).isNotSameAs(a);
+    assertThat(ReflectiveAtInjectBinding.getClassInjections(Injected.class))
+        .isSameAs(ReflectiveAtInjectBinding.getClassInjections(Injected.class));
+  }
+
+  @Test public void cachedClassInjectionsStillRequireInjections() {
+    assertThat(ReflectiveAtInjectBinding.create(NotInjected.class, false).provideKey).isNull();
+    try {
+      ReflectiveAtInjectBinding.create(NotInjected.class, true);
+      fail();
+    } catch (InvalidBindingException expected) {
+      assertThat(expected.getMessage()).contains("has no injectable members");
+    }
+  }
+
+  public static class PluginEntry {
+    @Inject public PluginEntry() { }
+  }
+
+  @Module(injects = PluginEntry.class)
+  public static class PluginModule {
+  }
+
+  public static final class PluginModule$$ModuleAdapter
+      extends TestingModuleAdapter<PluginModule> {
+    public PluginModule$$ModuleAdapter() {
+      super(PluginModule.class, PluginModule.class.getAnnotation(Module.class));
+    }
+  }
+
+  @Test public void weaklyCachedClassInjectionsSurviveWhileAGraphUsesThem() throws Exception {
+    ClassLoader pluginLoader = new PluginClassLoader();
+    Class<?> entryClass = pluginLoader.loadClass(PluginEntry.class.getName());
+    ObjectGraph graph =
+        ObjectGraph.create(pluginLoader.loadClass(PluginModule.class.getName()).newInstance());
+    assertThat(graph.get(entryClass)).isNotNull();
+
+    WeakReference<Object> injections =
+        new WeakReference<Object>(ReflectiveAtInjectBinding.getClassInjections(entryClass));
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(injections.get()).isNotNull();
+    assertThat(ReflectiveAtInjectBinding.getClassInjections(entryClass))
+        .isSameAs(injections.get());
+    assertThat(graph.get(entryClass)).isNotNull(); // Keeps the graph reachable.
+  }
+
+  /** Loads this test's plugin classes itself, and delegates other classes to its parent. */
+  private static final class PluginClassLoader extends ClassLoader {
+    private static final String PREFIX = ReflectiveAtInjectBindingTest.class.getName() + "$Plugin";
+
+    PluginClassLoader() {
+      super(ReflectiveAtInjectBindingTest.class.getClassLoader());
+    }
+
+    @Override protected synchronized Class<?> loadClass(String name, boolean resolve)
+        throws ClassNotFoundException {
+      if (!name.startsWith(PREFIX)) {
+        return super.loadClass(name, resolve);
+      }
+      Class<?> result = findLoadedClass(name);
+      if (result == null) {
+        byte[] bytes = readClassFile(name);
+        result = defineClass(name, bytes, 0, bytes.length);
+      }
+      return result;
+    }
+
+    private byte[] readClassFile(String name) throws ClassNotFoundException {
+      InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+      if (in == null) {
+        throw new ClassNotFoundException(name);
+      }
+      try {
+        try {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          for (int count; (count = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, count);
+          }
+          return out.toByteArray();
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}